@@ -1,61 +1,193 @@
-import entity.User;
 import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.ForbiddenResponse;
+import io.javalin.http.HandlerType;
+import io.javalin.http.TooManyRequestsResponse;
 import io.javalin.http.UnauthorizedResponse;
 import controller.AuthHttpController;
 import controller.ProductHttpController;
 import controller.AddressHttpController;
 import controller.OrderHttpController;
+import controller.AdminHttpController;
 import business.AuthBusiness;
 import business.ProductBusiness;
 import business.AddressBusiness;
 import business.OrderBusiness;
-import repository.RepositoryInterface;
+import repository.AddressRepositoryInterface;
+import repository.OrderItemsRepositoryInterface;
+import repository.OrderRepositoryInterface;
+import repository.ProductRepositoryInterface;
+import repository.UserRepositoryInterface;
+import repository.TransactionManager;
+import repository.cache.CachedProductRepository;
+import repository.loader.BatchingRepository;
+import repository.loader.EntityLoaders;
+import repository.memory.AddressRepositoryMemory;
+import repository.memory.MemoryTransactionManager;
+import repository.memory.OrderItemsRepositoryMemory;
+import repository.memory.OrderRepositoryMemory;
+import repository.memory.ProductRepositoryMemory;
+import repository.memory.UserRepositoryMemory;
 import repository.sqlite.UserRepositorySQLite;
 import repository.sqlite.ProductRepositorySQLite;
 import repository.sqlite.AddressRepositorySQLite;
 import repository.sqlite.OrderRepositorySQLite;
 import repository.sqlite.OrderItemsRepositorySQLite;
+import repository.sqlite.DatabaseManager;
+import repository.sqlite.SQLiteTransactionManager;
+import auth.RateLimiter;
 import auth.SimpleTokenManager;
+import entity.Address;
+import entity.Product;
+import entity.User;
+import log.Log;
+import metrics.HttpMetrics;
+import metrics.MetricsRegistry;
+import repository.loader.BatchLoader;
+import repository.profiling.QueryProfile;
+import repository.profiling.TimedRepository;
+import repository.sqlite.ConnectionPool;
+import repository.sqlite.SlowQueryLog;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 
 public class Main {
+    // First path segments whose routes require a logged-in user
+    private static final Set<String> PROTECTED_SECTIONS = Set.of("profile", "products", "addresses", "orders", "users", "protected", "admin");
+
+    // Users allowed on /admin routes, from -Dadmin.userIds (comma-separated ids; nobody by default)
+    private static final Set<Integer> ADMIN_USER_IDS = adminUserIds();
+
     public static void main(String[] args) {
-        // Initialize SQLite repositories
-        RepositoryInterface<User> userRepository = new UserRepositorySQLite();
-        AuthBusiness authBusiness = new AuthBusiness(userRepository);
+        // Storage backend: SQLite by default, or -Dstorage=memory for an ephemeral in-memory store
+        boolean inMemory = System.getProperty("storage", "sqlite").equals("memory");
+
+        // Every component registers its stats here; served at GET /metrics
+        MetricsRegistry metrics = new MetricsRegistry();
+
+        UserRepositoryInterface userRepository;
+        ProductRepositoryInterface productRepository;
+        AddressRepositoryInterface addressRepository;
+        OrderRepositoryInterface orderRepository;
+        OrderItemsRepositoryInterface orderItemsRepository;
+        TransactionManager transactionManager;
+
+        if (inMemory) {
+            System.out.println("Storage: in-memory (data is lost when the server stops)");
+            ProductRepositoryMemory productMemory = new ProductRepositoryMemory();
+            userRepository = new UserRepositoryMemory();
+            productRepository = productMemory;
+            addressRepository = new AddressRepositoryMemory();
+            orderItemsRepository = new OrderItemsRepositoryMemory();
+            orderRepository = new OrderRepositoryMemory(userRepository, addressRepository, orderItemsRepository, productMemory);
+            transactionManager = new MemoryTransactionManager();
+        } else {
+            // Migrate the database schema before anything touches it
+            DatabaseManager.initialize();
+            registerPoolMetrics(metrics, DatabaseManager.getPool());
+
+            userRepository = new UserRepositorySQLite();
+            productRepository = new ProductRepositorySQLite();
+            addressRepository = new AddressRepositorySQLite();
+            orderRepository = new OrderRepositorySQLite();
+            orderItemsRepository = new OrderItemsRepositorySQLite();
+            transactionManager = new SQLiteTransactionManager();
+        }
+
+        // Times every repository call, per request and per method; -Dquery.profile=false turns it off
+        boolean profileQueries = Boolean.parseBoolean(System.getProperty("query.profile", "true"));
+        if (profileQueries) {
+            MetricsRegistry.LabeledHistogram repositoryLatency =
+                metrics.histogram("repository_call_duration_seconds", "Repository call latency", 1e-6, "repository", "method");
+            userRepository = TimedRepository.wrap(UserRepositoryInterface.class, userRepository, "UserRepository", repositoryLatency);
+            productRepository = TimedRepository.wrap(ProductRepositoryInterface.class, productRepository, "ProductRepository", repositoryLatency);
+            addressRepository = TimedRepository.wrap(AddressRepositoryInterface.class, addressRepository, "AddressRepository", repositoryLatency);
+            orderRepository = TimedRepository.wrap(OrderRepositoryInterface.class, orderRepository, "OrderRepository", repositoryLatency);
+            orderItemsRepository = TimedRepository.wrap(OrderItemsRepositoryInterface.class, orderItemsRepository, "OrderItemsRepository", repositoryLatency);
+        }
+
+        if (!inMemory) {
+            // Concurrent lookups by id share loads and go out as batched IN queries; -Dloader.batchSize=0 turns it off
+            int loaderBatchSize = Integer.getInteger("loader.batchSize", 100);
+            if (loaderBatchSize > 0) {
+                BatchLoader<User> userLoader = EntityLoaders.users(userRepository, loaderBatchSize);
+                BatchLoader<Product> productLoader = EntityLoaders.products(productRepository, loaderBatchSize);
+                BatchLoader<Address> addressLoader = EntityLoaders.addresses(addressRepository, loaderBatchSize);
+                userRepository = BatchingRepository.wrap(UserRepositoryInterface.class, userRepository, userLoader, transactionManager);
+                productRepository = BatchingRepository.wrap(ProductRepositoryInterface.class, productRepository, productLoader, transactionManager);
+                addressRepository = BatchingRepository.wrap(AddressRepositoryInterface.class, addressRepository, addressLoader, transactionManager);
+                registerLoaderMetrics(metrics, Map.of("user", userLoader, "product", productLoader, "address", addressLoader));
+            }
+        }
+
+        // Read-through product cache; -Dcache.products.size=0 turns it off
+        int productCacheSize = Integer.getInteger("cache.products.size", 1000);
+        if (productCacheSize > 0) {
+            long productCacheTtlMillis = Long.getLong("cache.products.ttlMillis", 30_000L);
+            CachedProductRepository productCache =
+                new CachedProductRepository(productRepository, transactionManager, productCacheSize, productCacheTtlMillis);
+            registerProductCacheMetrics(metrics, productCache);
+            productRepository = productCache;
+        }
+
+        // In-process email index for registration duplicate checks; only safe when this server is the only writer
+        boolean emailIndex = Boolean.parseBoolean(System.getProperty("auth.emailIndex", "false"));
+        AuthBusiness authBusiness = new AuthBusiness(userRepository, emailIndex);
         AuthHttpController authHttpController = new AuthHttpController(authBusiness);
 
-        ProductRepositorySQLite productRepository = new ProductRepositorySQLite();
         ProductBusiness productBusiness = new ProductBusiness(productRepository);
         ProductHttpController productHttpController = new ProductHttpController(productBusiness);
 
-        AddressRepositorySQLite addressRepository = new AddressRepositorySQLite();
         AddressBusiness addressBusiness = new AddressBusiness(addressRepository, userRepository);
         AddressHttpController addressHttpController = new AddressHttpController(addressBusiness);
 
-        OrderRepositorySQLite orderRepository = new OrderRepositorySQLite();
-        OrderItemsRepositorySQLite orderItemsRepository = new OrderItemsRepositorySQLite();
-        OrderBusiness orderBusiness = new OrderBusiness(orderRepository, orderItemsRepository, userRepository, addressRepository, productRepository);
+        OrderBusiness orderBusiness = new OrderBusiness(orderRepository, orderItemsRepository, userRepository, addressRepository, productRepository, transactionManager);
         OrderHttpController orderHttpController = new OrderHttpController(orderBusiness);
 
+        AdminHttpController adminHttpController =
+            new AdminHttpController(inMemory ? null : DatabaseManager.getPool().getSlowQueryLog());
+
         Javalin app = Javalin.create(config -> {
             config.showJavalinBanner = false;
         }).start(7000);
 
-        // Authentication middleware for protected routes
-        app.before("/profile", ctx -> requireAuth(ctx));
-        app.before("/products/*", ctx -> requireAuth(ctx));
-        app.before("/products", ctx -> requireAuth(ctx));
-        app.before("/addresses/*", ctx -> requireAuth(ctx));
-        app.before("/addresses", ctx -> requireAuth(ctx));
-        app.before("/users/*/addresses", ctx -> requireAuth(ctx));
-        app.before("/orders/*", ctx -> requireAuth(ctx));
-        app.before("/orders", ctx -> requireAuth(ctx));
-        app.before("/protected", ctx -> requireAuth(ctx));
+        // Per-client rate limiting by route group; -Dratelimit.enabled=false turns it off
+        RateLimiter rateLimiter = Boolean.parseBoolean(System.getProperty("ratelimit.enabled", "true"))
+            ? configureRateLimiter()
+            : null;
+        if (rateLimiter != null) {
+            registerRateLimiterMetrics(metrics, rateLimiter);
+        }
+        registerTokenMetrics(metrics);
+        registerLogMetrics(metrics);
+
+        // Request counts and latency; registered first so every other filter's rejections are measured too
+        HttpMetrics httpMetrics = new HttpMetrics(metrics);
+        app.before(httpMetrics::before);
+        app.after(httpMetrics::after);
+
+        // Per-request repository call count and time, reported in a Server-Timing header and logged over -Dquery.budget
+        if (profileQueries) {
+            int queryBudget = Integer.getInteger("query.budget", 50);
+            app.before(ctx -> QueryProfile.begin());
+            app.after(ctx -> reportQueries(ctx, queryBudget));
+        }
+
+        // Rate limiting and authentication for every request, in one filter
+        app.before(ctx -> admit(ctx, rateLimiter));
 
         // Public routes (no authentication required)
         app.get("/health", ctx -> {
             ctx.json("{\"status\": \"OK\", \"message\": \"Server is running\"}");
         });
+        app.get("/metrics", ctx -> {
+            ctx.contentType("text/plain; version=0.0.4; charset=utf-8").result(metrics.render());
+        });
 
         // Auth routes (public)
         app.post("/auth/register", authHttpController::createUser);
@@ -89,6 +221,9 @@ public class Main {
         // User orders route (optional - for accessing specific user's orders)
         app.get("/users/{userId}/orders", orderHttpController::listOrdersByUserId);
 
+        // Admin routes (only for -Dadmin.userIds)
+        app.get("/admin/slow-queries", adminHttpController::getSlowQueries);
+
         // Other protected routes
         app.get("/protected", ctx -> {
             ctx.json("{\"message\": \"This is a protected route - you are authenticated!\"}");
@@ -97,6 +232,7 @@ public class Main {
         System.out.println("Server started on http://localhost:7000");
         System.out.println("=== Public Routes ===");
         System.out.println("Health check: GET http://localhost:7000/health");
+        System.out.println("Metrics: GET http://localhost:7000/metrics");
         System.out.println("Register: POST http://localhost:7000/auth/register");
         System.out.println("Login: POST http://localhost:7000/auth/login");
         System.out.println("Logout: POST http://localhost:7000/auth/logout");
@@ -123,22 +259,172 @@ public class Main {
         System.out.println("Update Order: PUT http://localhost:7000/orders/{id}");
         System.out.println("Cancel Order: DELETE http://localhost:7000/orders/{id}");
         System.out.println("User Orders: GET http://localhost:7000/users/{userId}/orders");
+        System.out.println("=== Admin Routes (require an admin user) ===");
+        System.out.println("Slow Queries: GET http://localhost:7000/admin/slow-queries");
         System.out.println("=== API Documentation ===");
     }
 
-    private static void requireAuth(io.javalin.http.Context ctx) {
+    private static void admit(Context ctx, RateLimiter rateLimiter) {
+        String path = ctx.path();
+        if (path.equals("/health") || path.equals("/metrics")) {
+            return;
+        }
+
         String authHeader = ctx.header("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            throw new UnauthorizedResponse("Token de autenticação obrigatório");
+        String token = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null; // Remove "Bearer " prefix
+        Integer userId = token != null ? SimpleTokenManager.getUserIdFromToken(token) : null;
+
+        // Authenticated clients are limited per user, everyone else (including bad tokens) per IP
+        if (rateLimiter != null) {
+            String clientKey = userId != null ? "user:" + userId : "ip:" + ctx.ip();
+            long retryAfterMillis = rateLimiter.tryAcquire(rateLimitGroup(ctx), clientKey);
+            if (retryAfterMillis > 0) {
+                ctx.header("Retry-After", String.valueOf((retryAfterMillis + 999) / 1000));
+                throw new TooManyRequestsResponse("Muitas requisições, tente novamente em instantes");
+            }
         }
 
-        String token = authHeader.substring(7); // Remove "Bearer " prefix
-        if (!SimpleTokenManager.isValidToken(token)) {
+        if (!PROTECTED_SECTIONS.contains(firstSegment(path))) {
+            return;
+        }
+        if (token == null) {
+            throw new UnauthorizedResponse("Token de autenticação obrigatório");
+        }
+        if (userId == null) {
             throw new UnauthorizedResponse("Token inválido ou expirado");
         }
 
+        if (firstSegment(path).equals("admin") && !ADMIN_USER_IDS.contains(userId)) {
+            throw new ForbiddenResponse("Acesso restrito a administradores");
+        }
+
         // Store user ID in context for use in handlers
-        Integer userId = SimpleTokenManager.getUserIdFromToken(token);
         ctx.attribute("userId", userId);
     }
+
+    private static void reportQueries(Context ctx, int queryBudget) {
+        QueryProfile profile = QueryProfile.end();
+        if (profile == null) {
+            return;
+        }
+
+        ctx.header("Server-Timing", String.format(Locale.ROOT, "db;dur=%.2f;desc=\"%d queries\"",
+            profile.getMillis(), profile.getCallCount()));
+        if (profile.getCallCount() > queryBudget) {
+            Log.warn("db.query_budget_exceeded", "method", ctx.method().name(), "path", ctx.path(),
+                "queries", profile.getCallCount(), "budget", queryBudget,
+                "dbMillis", Math.round(profile.getMillis()), "calls", profile.describeCalls());
+        }
+    }
+
+    private static Set<Integer> adminUserIds() {
+        Set<Integer> ids = new HashSet<>();
+        for (String id : System.getProperty("admin.userIds", "").split(",")) {
+            if (!id.isBlank()) {
+                ids.add(Integer.parseInt(id.trim()));
+            }
+        }
+        return ids;
+    }
+
+    private static String firstSegment(String path) {
+        int end = path.indexOf('/', 1);
+        return end < 0 ? path.substring(1) : path.substring(1, end);
+    }
+
+    private static String rateLimitGroup(Context ctx) {
+        String path = ctx.path();
+        if (path.startsWith("/auth/")) {
+            return "auth";
+        }
+        if (ctx.method() == HandlerType.POST && path.equals("/orders")) {
+            return "orders";
+        }
+        if (ctx.method() == HandlerType.GET
+                && (path.equals("/products") || path.equals("/orders") || path.matches("/users/[^/]+/orders"))) {
+            return "listing";
+        }
+        return "default";
+    }
+
+    // Defaults per group, each adjustable with -Dratelimit.<group>.rate (requests per second) and .burst
+    private static RateLimiter configureRateLimiter() {
+        RateLimiter rateLimiter = new RateLimiter();
+        addRateLimitGroup(rateLimiter, "auth", 1, 10);
+        addRateLimitGroup(rateLimiter, "orders", 5, 20);
+        addRateLimitGroup(rateLimiter, "listing", 10, 30);
+        addRateLimitGroup(rateLimiter, "default", 50, 100);
+        return rateLimiter.startCleanup(60_000);
+    }
+
+    private static void addRateLimitGroup(RateLimiter rateLimiter, String group, double defaultRate, int defaultBurst) {
+        double rate = Double.parseDouble(System.getProperty("ratelimit." + group + ".rate", String.valueOf(defaultRate)));
+        int burst = Integer.getInteger("ratelimit." + group + ".burst", defaultBurst);
+        rateLimiter.group(group, rate, burst);
+    }
+
+    private static void registerPoolMetrics(MetricsRegistry metrics, ConnectionPool pool) {
+        metrics.gauge("db_pool_connections_active", "Connections leased from the pool", pool::getActiveCount);
+        metrics.gauge("db_pool_connections_idle", "Idle connections in the pool", pool::getIdleCount);
+        metrics.gauge("db_pool_connections_max", "Pool size limit", pool::getMaxSize);
+        metrics.counter("db_pool_leases_total", "Connections leased", pool::getLeaseCount);
+        metrics.counter("db_pool_timeouts_total", "Leases that timed out waiting for a connection", pool::getTimeoutCount);
+        metrics.counter("db_pool_wait_seconds_total", "Time spent waiting for a connection", () -> pool.getTotalWaitMillis() / 1000.0);
+        metrics.counter("db_statement_cache_hits_total", "Prepared statements reused from the cache", pool::getStatementCacheHits);
+        metrics.counter("db_statement_cache_misses_total", "Prepared statements that had to be prepared", pool::getStatementCacheMisses);
+        metrics.counter("db_statement_cache_evictions_total", "Prepared statements evicted from the cache", pool::getStatementCacheEvictions);
+        metrics.gauge("db_statement_cache_statements", "Prepared statements currently cached", pool::getCachedStatementCount);
+        SlowQueryLog slowQueryLog = pool.getSlowQueryLog();
+        if (slowQueryLog != null) {
+            metrics.counter("db_slow_queries_total", "Statements slower than the slow query threshold", slowQueryLog::getRecordedCount);
+        }
+    }
+
+    private static void registerLoaderMetrics(MetricsRegistry metrics, Map<String, BatchLoader<?>> loaders) {
+        metrics.counters("loader_requests_total", "Lookups by id through a batch loader", "entity", () -> loaderStats(loaders, BatchLoader::getRequestCount));
+        metrics.counters("loader_coalesced_total", "Lookups that joined a load already in flight", "entity", () -> loaderStats(loaders, BatchLoader::getCoalescedCount));
+        metrics.counters("loader_batches_total", "Batched queries issued", "entity", () -> loaderStats(loaders, BatchLoader::getBatchCount));
+        metrics.gauges("loader_largest_batch", "Largest batch issued so far", "entity", () -> loaderStats(loaders, BatchLoader::getLargestBatchSize));
+    }
+
+    private static Map<String, Number> loaderStats(Map<String, BatchLoader<?>> loaders, Function<BatchLoader<?>, Number> stat) {
+        Map<String, Number> values = new TreeMap<>();
+        loaders.forEach((entity, loader) -> values.put(entity, stat.apply(loader)));
+        return values;
+    }
+
+    private static void registerProductCacheMetrics(MetricsRegistry metrics, CachedProductRepository cache) {
+        metrics.gauge("product_cache_entries", "Products currently cached", cache::getSize);
+        metrics.counter("product_cache_hits_total", "Product lookups served from the cache", cache::getHitCount);
+        metrics.counter("product_cache_misses_total", "Product lookups that went to the repository", cache::getMissCount);
+        metrics.counter("product_cache_evictions_total", "Products evicted to stay within the size limit", cache::getEvictionCount);
+        metrics.counter("product_cache_expirations_total", "Cached products dropped after their TTL", cache::getExpirationCount);
+        metrics.counter("product_cache_invalidations_total", "Cached products dropped because they changed", cache::getInvalidationCount);
+    }
+
+    private static void registerRateLimiterMetrics(MetricsRegistry metrics, RateLimiter rateLimiter) {
+        metrics.counters("ratelimit_allowed_total", "Requests admitted per route group", "group", () -> rateLimitStats(rateLimiter, RateLimiter.Stats::getAllowed));
+        metrics.counters("ratelimit_throttled_total", "Requests rejected with 429 per route group", "group", () -> rateLimitStats(rateLimiter, RateLimiter.Stats::getThrottled));
+        metrics.gauges("ratelimit_clients", "Clients with a partly used bucket per route group", "group", () -> rateLimitStats(rateLimiter, RateLimiter.Stats::getClients));
+    }
+
+    private static Map<String, Number> rateLimitStats(RateLimiter rateLimiter, Function<RateLimiter.Stats, Number> stat) {
+        Map<String, Number> values = new TreeMap<>();
+        rateLimiter.getStats().forEach((group, stats) -> values.put(group, stat.apply(stats)));
+        return values;
+    }
+
+    private static void registerTokenMetrics(MetricsRegistry metrics) {
+        metrics.counter("auth_tokens_issued_total", "Tokens issued at login", SimpleTokenManager::getIssuedCount);
+        metrics.counter("auth_tokens_revoked_total", "Tokens revoked by logout", SimpleTokenManager::getRevokedCount);
+        metrics.gauge("auth_revocation_set_size", "Revoked tokens not yet expired", SimpleTokenManager::getRevocationSetSize);
+        metrics.counter("auth_tokens_rejected_signature_total", "Tokens rejected for a bad signature", SimpleTokenManager::getRejectedSignatureCount);
+        metrics.counter("auth_tokens_rejected_expired_total", "Tokens rejected as expired", SimpleTokenManager::getRejectedExpiredCount);
+        metrics.counter("auth_tokens_rejected_revoked_total", "Tokens rejected as revoked", SimpleTokenManager::getRejectedRevokedCount);
+    }
+
+    private static void registerLogMetrics(MetricsRegistry metrics) {
+        metrics.counter("log_events_written_total", "Log events written", Log::getWrittenCount);
+        metrics.counter("log_events_dropped_total", "Log events dropped because the buffer was full", Log::getDroppedCount);
+    }
 }
@@ -0,0 +1,31 @@
+import repository.sqlite.DatabaseManager;
+import repository.sqlite.OrderRepositorySQLite;
+
+// Checks or recomputes the item count and total stored on each order.
+// Usage: RebuildOrderTotals [--check]
+public class RebuildOrderTotals {
+    public static void main(String[] args) {
+        boolean checkOnly = args.length > 0 && args[0].equals("--check");
+
+        DatabaseManager.initialize();
+        OrderRepositorySQLite orderRepository = new OrderRepositorySQLite();
+
+        int inconsistent;
+        try {
+            inconsistent = orderRepository.countInconsistentTotals();
+            System.out.println("Pedidos com totais inconsistentes: " + inconsistent);
+
+            if (!checkOnly && inconsistent > 0) {
+                int updated = orderRepository.rebuildTotals();
+                System.out.println("Pedidos atualizados: " + updated);
+            }
+        } finally {
+            DatabaseManager.closeConnection();
+        }
+
+        // A failed check exits non-zero so it can be used in scripts
+        if (checkOnly && inconsistent > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package auth;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Token-bucket rate limiting per client (user id or IP) and per route group.
+// Each bucket is a single timestamp: the time at which it would be full again (the GCRA form of a token bucket).
+// Taking a token moves that time forward by one refill interval, with a compare-and-set, so buckets need no
+// locks and shared clients never block each other. A request is refused when the bucket would need to be
+// fuller than its burst allows.
+public class RateLimiter {
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    // Buckets idle long enough to be full again are indistinguishable from new ones, so they are dropped.
+    // A request racing the removal may find a fresh bucket, which at most grants that client one extra burst.
+    public RateLimiter startCleanup(long intervalMillis) {
+        ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(() -> {
+            long now = System.nanoTime();
+            for (Group group : groups.values()) {
+                group.buckets.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    // Groups are declared at startup, before any request is checked
+    public RateLimiter group(String name, double requestsPerSecond, int burst) {
+        if (requestsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Limite e rajada do grupo " + name + " devem ser maiores que zero");
+        }
+        groups.put(name, new Group((long) (1_000_000_000L / requestsPerSecond), burst));
+        return this;
+    }
+
+    // 0 if the request may proceed, otherwise how many milliseconds until the client may try again
+    public long tryAcquire(String groupName, String clientKey) {
+        Group group = groups.get(groupName);
+        if (group == null) {
+            throw new IllegalArgumentException("Grupo de limite desconhecido: " + groupName);
+        }
+
+        AtomicLong fullAt = group.buckets.computeIfAbsent(clientKey, key -> new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + group.intervalNanos;
+            long excess = next - now - group.capacityNanos;
+            if (excess > 0) {
+                group.throttled.increment();
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(excess));
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                group.allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        for (Map.Entry<String, Group> entry : groups.entrySet()) {
+            Group group = entry.getValue();
+            stats.put(entry.getKey(), new Stats(group.allowed.sum(), group.throttled.sum(), group.buckets.size()));
+        }
+        return stats;
+    }
+
+    public static class Stats {
+        private final long allowed;
+        private final long throttled;
+        private final int clients;
+
+        Stats(long allowed, long throttled, int clients) {
+            this.allowed = allowed;
+            this.throttled = throttled;
+            this.clients = clients;
+        }
+
+        public long getAllowed() {
+            return allowed;
+        }
+
+        public long getThrottled() {
+            return throttled;
+        }
+
+        public int getClients() {
+            return clients;
+        }
+    }
+
+    private static class Group {
+        private final long intervalNanos;
+        private final long capacityNanos;
+        private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+
+        Group(long intervalNanos, int burst) {
+            this.intervalNanos = intervalNanos;
+            this.capacityNanos = intervalNanos * burst;
+        }
+    }
+}
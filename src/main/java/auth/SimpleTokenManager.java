@@ -1,27 +1,287 @@
 package auth;
 
+import log.Log;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
+// Self-contained tokens: the user id and expiry travel in the token, signed with HMAC-SHA256, so checking one
+// needs no lookup and any server holding the same secret accepts it.
+// Format: base64url(version, token id, user id, expiry) "." base64url(signature).
+// The secret comes from the AUTH_TOKEN_SECRET environment variable; without it a random key is generated
+// (and kept in the snapshot below). Tokens expire -Dauth.token.maxTtlMillis after login (default 12 hours).
+// Logout adds the token id to a revocation set, whose entries are dropped once the token would have expired anyway.
+// The revocation set and a generated key are snapshotted to -Dauth.snapshot.file (default auth_tokens.snapshot,
+// empty to disable) every -Dauth.snapshot.intervalMillis (default 10 seconds) and on shutdown, and restored at
+// startup, so a restart neither logs everyone out nor brings revoked tokens back.
 public class SimpleTokenManager {
-    private static final Map<String, Integer> tokenToUserId = new ConcurrentHashMap<>();
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int PAYLOAD_LENGTH = 1 + 8 + 4 + 8;
+    private static final int SIGNATURE_LENGTH = 32;
+
+    private static final long TTL_MILLIS = Long.getLong("auth.token.maxTtlMillis", 12 * 60 * 60 * 1000L);
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // Token ids key the revocation set, so they must not be guessable; SecureRandom is thread-safe and shared
+    private static final SecureRandom random = new SecureRandom();
+
+    private static final Path SNAPSHOT_FILE = snapshotFile();
+    private static final long SNAPSHOT_INTERVAL_MILLIS = Long.getLong("auth.snapshot.intervalMillis", 10_000L);
+
+    private static final TokenSnapshot restored =
+        SNAPSHOT_FILE != null ? TokenSnapshot.read(SNAPSHOT_FILE, System.currentTimeMillis()) : null;
+
+    // Key generated (or restored) when AUTH_TOKEN_SECRET is not set; null otherwise, and never written to disk then
+    private static final byte[] generatedKey = configuredSecret() == null ? loadGeneratedKey() : null;
+
+    private static final SecretKeySpec key = new SecretKeySpec(loadSecret(), ALGORITHM);
+
+    // Mac instances are not thread-safe and costly to set up, so each thread keeps one
+    private static final ThreadLocal<Mac> mac = ThreadLocal.withInitial(() -> {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Erro ao inicializar assinatura de tokens", e);
+        }
+    });
+
+    // Revoked token id -> expiry of the token
+    private static final Map<Long, Long> revoked = new ConcurrentHashMap<>();
+
+    private static final TimingWheel<Long> revocationWheel =
+        new TimingWheel<>(1000, 512, SimpleTokenManager::onRevocationDeadline).start("token-revocation-expiry");
+
+    // Set by every revocation; the snapshot task only writes when something changed
+    private static final AtomicBoolean snapshotDirty = new AtomicBoolean();
+
+    // Stats
+    private static final LongAdder issued = new LongAdder();
+    private static final LongAdder revocations = new LongAdder();
+    private static final LongAdder rejectedSignatures = new LongAdder();
+    private static final LongAdder rejectedExpired = new LongAdder();
+    private static final LongAdder rejectedRevoked = new LongAdder();
+    private static final LongAdder snapshots = new LongAdder();
+    private static final LongAdder snapshotFailures = new LongAdder();
+
+    static {
+        if (restored != null) {
+            revoked.putAll(restored.getRevoked());
+            for (Map.Entry<Long, Long> entry : restored.getRevoked().entrySet()) {
+                revocationWheel.schedule(entry.getKey(), entry.getValue());
+            }
+        }
+        if (SNAPSHOT_FILE != null) {
+            startSnapshots();
+        }
+    }
 
     public static String generateToken(int userId) {
-        String token = UUID.randomUUID().toString();
-        tokenToUserId.put(token, userId);
-        return token;
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_LENGTH);
+        payload.put(VERSION);
+        payload.putLong(random.nextLong());
+        payload.putInt(userId);
+        payload.putLong(System.currentTimeMillis() + TTL_MILLIS);
+
+        byte[] payloadBytes = payload.array();
+        issued.increment();
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
     }
 
+    // Null if the token is malformed, forged, expired or revoked
     public static Integer getUserIdFromToken(String token) {
-        return tokenToUserId.get(token);
+        Claims claims = verify(token);
+        return claims != null ? claims.userId : null;
     }
 
     public static boolean isValidToken(String token) {
-        return token != null && tokenToUserId.containsKey(token);
+        return verify(token) != null;
     }
 
     public static void removeToken(String token) {
-        tokenToUserId.remove(token);
+        Claims claims = verify(token);
+        if (claims != null && revoked.putIfAbsent(claims.tokenId, claims.expiresAt) == null) {
+            revocations.increment();
+            revocationWheel.schedule(claims.tokenId, claims.expiresAt);
+            snapshotDirty.set(true);
+        }
+    }
+
+    private static Claims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (payload.length != PAYLOAD_LENGTH || signature.length != SIGNATURE_LENGTH || payload[0] != VERSION) {
+            return null;
+        }
+
+        // Constant-time comparison, so response timing reveals nothing about the expected signature
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            rejectedSignatures.increment();
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(payload, 1, PAYLOAD_LENGTH - 1);
+        Claims claims = new Claims(buffer.getLong(), buffer.getInt(), buffer.getLong());
+        if (claims.expiresAt <= System.currentTimeMillis()) {
+            rejectedExpired.increment();
+            return null;
+        }
+        if (!revoked.isEmpty() && revoked.containsKey(claims.tokenId)) {
+            rejectedRevoked.increment();
+            return null;
+        }
+        return claims;
+    }
+
+    private static byte[] sign(byte[] payload) {
+        return mac.get().doFinal(payload);
+    }
+
+    // An expired token is rejected by its expiry, so its revocation no longer needs to be kept
+    private static long onRevocationDeadline(Long tokenId) {
+        revoked.remove(tokenId);
+        return 0;
+    }
+
+    private static byte[] loadSecret() {
+        if (generatedKey != null) {
+            return generatedKey;
+        }
+        byte[] bytes = configuredSecret().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            Log.warn("auth.secret.short", "bytes", bytes.length);
+        }
+        return bytes;
+    }
+
+    private static String configuredSecret() {
+        String secret = System.getenv("AUTH_TOKEN_SECRET");
+        return secret != null && !secret.isEmpty() ? secret : null;
+    }
+
+    private static byte[] loadGeneratedKey() {
+        if (restored != null && restored.getKey() != null) {
+            return restored.getKey();
+        }
+        byte[] generated = new byte[32];
+        random.nextBytes(generated);
+        return generated;
+    }
+
+    private static Path snapshotFile() {
+        String file = System.getProperty("auth.snapshot.file", "auth_tokens.snapshot");
+        return file.isEmpty() ? null : Paths.get(file);
+    }
+
+    // Snapshots run on their own thread, never on a request
+    private static void startSnapshots() {
+        // A new key must reach the disk before the tokens signed with it can outlive this process
+        if (generatedKey != null && (restored == null || restored.getKey() == null)) {
+            snapshotDirty.set(true);
+        }
+
+        ScheduledExecutorService snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(SimpleTokenManager::writeSnapshotIfDirty, 0, SNAPSHOT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(SimpleTokenManager::writeSnapshotIfDirty, "token-snapshot-shutdown"));
+    }
+
+    private static synchronized void writeSnapshotIfDirty() {
+        if (!snapshotDirty.getAndSet(false)) {
+            return;
+        }
+        try {
+            TokenSnapshot.write(SNAPSHOT_FILE, generatedKey, revoked);
+            snapshots.increment();
+        } catch (IOException | RuntimeException e) {
+            snapshotDirty.set(true);
+            snapshotFailures.increment();
+            Log.warn("auth.snapshot.write_failed", "file", SNAPSHOT_FILE, "error", e.getMessage());
+        }
+    }
+
+    public static long getIssuedCount() {
+        return issued.sum();
+    }
+
+    public static long getRevokedCount() {
+        return revocations.sum();
+    }
+
+    public static int getRevocationSetSize() {
+        return revoked.size();
+    }
+
+    public static long getRejectedSignatureCount() {
+        return rejectedSignatures.sum();
+    }
+
+    public static long getRejectedExpiredCount() {
+        return rejectedExpired.sum();
+    }
+
+    public static long getRejectedRevokedCount() {
+        return rejectedRevoked.sum();
+    }
+
+    public static long getSnapshotCount() {
+        return snapshots.sum();
+    }
+
+    public static long getSnapshotFailureCount() {
+        return snapshotFailures.sum();
+    }
+
+    public static int getRestoredRevocationCount() {
+        return restored != null ? restored.getRevoked().size() : 0;
+    }
+
+    private static class Claims {
+        private final long tokenId;
+        private final int userId;
+        private final long expiresAt;
+
+        Claims(long tokenId, int userId, long expiresAt) {
+            this.tokenId = tokenId;
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+        }
     }
 }
@@ -0,0 +1,108 @@
+package auth;
+
+import log.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+// Hashed timing wheel: deadlines are hashed into a ring of slots by tick, and each tick only looks at one slot,
+// so expiring entries costs time proportional to what actually expires instead of a scan of everything.
+// Deadlines further out than one turn of the wheel stay in their slot until the turn that reaches them.
+// When a deadline passes, onDeadline decides what happens: it returns a new deadline to be scheduled again
+// (e.g. a session that was used meanwhile) or 0 to drop the entry.
+class TimingWheel<K> {
+    private final long tickMillis;
+    private final ConcurrentLinkedQueue<Timeout<K>>[] slots;
+    private final ToLongFunction<K> onDeadline;
+
+    // Last tick processed; only the ticking thread writes it
+    private volatile long currentTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long tickMillis, int slotCount, ToLongFunction<K> onDeadline) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("Intervalo e número de posições da roda devem ser maiores que zero");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ConcurrentLinkedQueue[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.onDeadline = onDeadline;
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    // Advances the wheel on a daemon thread, once per tick
+    TimingWheel<K> start(String threadName) {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(() -> {
+            try {
+                advance(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                Log.error("timing_wheel.tick.failed", e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    // A deadline already reached goes to the next tick. If the ticking thread passes the chosen slot while
+    // this runs, the entry waits one more turn of the wheel: late, but never lost.
+    void schedule(K key, long deadlineMillis) {
+        long deadlineTick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+        slots[slotOf(deadlineTick)].add(new Timeout<>(key, deadlineTick));
+    }
+
+    void advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            long tick = currentTick + 1;
+            expire(slots[slotOf(tick)], tick);
+            currentTick = tick;
+        }
+    }
+
+    private void expire(ConcurrentLinkedQueue<Timeout<K>> slot, long tick) {
+        // Entries for later turns go back into the slot after the drain, so the drain ends
+        List<Timeout<K>> later = new ArrayList<>();
+        Timeout<K> timeout;
+        while ((timeout = slot.poll()) != null) {
+            if (timeout.deadlineTick > tick) {
+                later.add(timeout);
+                continue;
+            }
+            long next = onDeadline.applyAsLong(timeout.key);
+            if (next > 0) {
+                long nextTick = Math.max(next / tickMillis, tick + 1);
+                if (slotOf(nextTick) == slotOf(tick)) {
+                    later.add(new Timeout<>(timeout.key, nextTick));
+                } else {
+                    slots[slotOf(nextTick)].add(new Timeout<>(timeout.key, nextTick));
+                }
+            }
+        }
+        slot.addAll(later);
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % slots.length);
+    }
+
+    private static class Timeout<K> {
+        private final K key;
+        private final long deadlineTick;
+
+        Timeout(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
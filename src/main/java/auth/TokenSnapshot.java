@@ -0,0 +1,125 @@
+package auth;
+
+import log.Log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+
+// Binary snapshot of the token state that must survive a restart: the generated signing key (only when no
+// AUTH_TOKEN_SECRET is set) and the revocation set.
+// Layout: magic, version, key length, key bytes, entry count, then (token id, expiry) pairs as longs.
+// Written to a temporary file and moved into place, so a crash mid-write never leaves a torn snapshot.
+class TokenSnapshot {
+    private static final int MAGIC = 0x544B534E; // "TKSN"
+    private static final int VERSION = 1;
+
+    private final byte[] key;
+    private final Map<Long, Long> revoked;
+
+    TokenSnapshot(byte[] key, Map<Long, Long> revoked) {
+        this.key = key;
+        this.revoked = revoked;
+    }
+
+    byte[] getKey() {
+        return key;
+    }
+
+    Map<Long, Long> getRevoked() {
+        return revoked;
+    }
+
+    // Null if there is no usable snapshot. The file is memory-mapped and read in one pass;
+    // revocations whose token has already expired are skipped.
+    static TokenSnapshot read(Path file, long now) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                Log.warn("auth.snapshot.unknown_format", "file", file);
+                return null;
+            }
+
+            byte[] key = new byte[buffer.getInt()];
+            buffer.get(key);
+
+            int count = buffer.getInt();
+            Map<Long, Long> revoked = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; i++) {
+                long tokenId = buffer.getLong();
+                long expiresAt = buffer.getLong();
+                if (expiresAt > now) {
+                    revoked.put(tokenId, expiresAt);
+                }
+            }
+            return new TokenSnapshot(key.length > 0 ? key : null, revoked);
+        } catch (IOException | BufferUnderflowException | NegativeArraySizeException e) {
+            Log.warn("auth.snapshot.read_failed", "file", file, "error", e.toString());
+            return null;
+        }
+    }
+
+    // Iterates the live map without locking it; revocations made during the write land in the next snapshot
+    static void write(Path file, byte[] key, Map<Long, Long> revoked) throws IOException {
+        byte[] storedKey = key != null ? key : new byte[0];
+
+        // The count is only known after the loop, so its slot is filled in at the end
+        ByteBuffer buffer = ByteBuffer.allocate(16 + storedKey.length + (revoked.size() + 64) * 16);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(storedKey.length).put(storedKey);
+        int countPosition = buffer.position();
+        buffer.putInt(0);
+
+        int count = 0;
+        for (Map.Entry<Long, Long> entry : revoked.entrySet()) {
+            if (buffer.remaining() < 16) {
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                buffer = larger.put(buffer);
+            }
+            buffer.putLong(entry.getKey()).putLong(entry.getValue());
+            count++;
+        }
+        buffer.putInt(countPosition, count);
+        buffer.flip();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            // The file may hold the signing key, so only the owner may read it
+            try {
+                Files.setPosixFilePermissions(temporary, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system; keep the default permissions
+            }
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+}
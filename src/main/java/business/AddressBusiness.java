@@ -2,15 +2,18 @@ package business;
 
 import entity.Address;
 import entity.User;
+import repository.AddressRepositoryInterface;
+import repository.Page;
+import repository.Query;
 import repository.RepositoryInterface;
 
 import java.util.List;
 
 public class AddressBusiness {
-    private RepositoryInterface<Address> addressRepository;
+    private AddressRepositoryInterface addressRepository;
     private RepositoryInterface<User> userRepository;
 
-    public AddressBusiness(RepositoryInterface<Address> addressRepository, RepositoryInterface<User> userRepository) {
+    public AddressBusiness(AddressRepositoryInterface addressRepository, RepositoryInterface<User> userRepository) {
         this.addressRepository = addressRepository;
         this.userRepository = userRepository;
     }
@@ -98,15 +101,16 @@ public class AddressBusiness {
             throw new Exception("Usuário não encontrado");
         }
 
-        // Note: We need to implement filtering by user ID using the generic interface
-        List<Address> allAddresses = addressRepository.list();
-        List<Address> userAddresses = new java.util.ArrayList<>();
-        for (Address address : allAddresses) {
-            if (address.getUserId() == userId) {
-                userAddresses.add(address);
-            }
+        return addressRepository.findByUserId(userId);
+    }
+
+    public Page<Address> getAddressesPage(int userId, Integer afterId, int limit) throws Exception {
+        if (userRepository.get(userId) == null) {
+            throw new Exception("Usuário não encontrado");
         }
-        return userAddresses;
+
+        Query query = Page.keyset(Query.where("user_id", Query.Operator.EQ, userId), afterId, limit);
+        return Page.fromLookahead(addressRepository.find(query), limit, Address::getId);
     }
 
     public Address getAddressById(int addressId, int userId) throws Exception {
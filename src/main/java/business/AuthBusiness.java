@@ -1,13 +1,29 @@
 package business;
 
 import entity.User;
-import repository.RepositoryInterface;
+import repository.Query;
+import repository.UserRepositoryInterface;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AuthBusiness {
-    private RepositoryInterface<User> userRepository;
+    // Placeholder id for an email whose registration is still being written
+    private static final int RESERVED = 0;
+
+    private UserRepositoryInterface userRepository;
+
+    // Optional in-process email -> id index, so duplicate checks on registration don't reach the database.
+    // Loaded once at startup and kept current by createUser; null when disabled.
+    private final ConcurrentHashMap<String, Integer> idsByEmail;
 
-    public AuthBusiness(RepositoryInterface<User> userRepository) {
+    public AuthBusiness(UserRepositoryInterface userRepository) {
+        this(userRepository, false);
+    }
+
+    public AuthBusiness(UserRepositoryInterface userRepository, boolean indexEmails) {
         this.userRepository = userRepository;
+        this.idsByEmail = indexEmails ? loadEmailIndex() : null;
     }
 
     public User createUser(String name, String email, String password, String confirmPassword, String document) throws Exception {
@@ -17,27 +33,53 @@ public class AuthBusiness {
         if (!password.equals(confirmPassword)) throw new Exception("Senhas não conferem");
         if (document == null || document.isEmpty()) throw new Exception("Documento obrigatório");
 
-        // Note: We'll need to add findByEmail to the interface or handle this differently
-        // For now, we'll check all users to find by email
-        for (User existingUser : userRepository.list()) {
-            if (existingUser.getEmail().equals(email)) {
-                throw new Exception("Email já cadastrado");
-            }
+        if (idsByEmail != null) {
+            return createIndexedUser(name, email, password, document);
+        }
+
+        if (userRepository.findByEmail(email) != null) {
+            throw new Exception("Email já cadastrado");
         }
 
         User user = new User(0, name, email, password, document); // ID will be set by create method
-        return userRepository.create(user);
+        return create(user);
     }
 
-    public User login(String email, String password) throws Exception {
-        // Search through all users to find by email
-        User foundUser = null;
-        for (User user : userRepository.list()) {
-            if (user.getEmail().equals(email)) {
-                foundUser = user;
-                break;
+    // Reserving the email first makes concurrent registrations of the same address fail here
+    // instead of racing to the unique constraint
+    private User createIndexedUser(String name, String email, String password, String document) throws Exception {
+        if (idsByEmail.putIfAbsent(email, RESERVED) != null) {
+            throw new Exception("Email já cadastrado");
+        }
+
+        try {
+            User created = create(new User(0, name, email, password, document));
+            idsByEmail.put(email, created.getId());
+            return created;
+        } catch (Exception | Error e) {
+            idsByEmail.remove(email, RESERVED);
+            throw e;
+        }
+    }
+
+    // The unique index on email is still the final guard (e.g. a user added by another process)
+    private User create(User user) throws Exception {
+        try {
+            return userRepository.create(user);
+        } catch (RuntimeException e) {
+            User existing = userRepository.findByEmail(user.getEmail());
+            if (existing != null) {
+                if (idsByEmail != null) {
+                    idsByEmail.put(existing.getEmail(), existing.getId());
+                }
+                throw new Exception("Email já cadastrado");
             }
+            throw e;
         }
+    }
+
+    public User login(String email, String password) throws Exception {
+        User foundUser = userRepository.findByEmail(email);
 
         if (foundUser == null) throw new Exception("Email ou senha incorretos");
         if (!foundUser.getPassword().equals(password)) throw new Exception("Email ou senha incorretos");
@@ -49,4 +91,12 @@ public class AuthBusiness {
         if (user == null) throw new Exception("Usuário não encontrado");
         return user;
     }
+
+    private ConcurrentHashMap<String, Integer> loadEmailIndex() {
+        ConcurrentHashMap<String, Integer> index = new ConcurrentHashMap<>();
+        for (Map<String, Object> row : userRepository.select(Query.all().select("id", "email"))) {
+            index.put((String) row.get("email"), ((Number) row.get("id")).intValue());
+        }
+        return index;
+    }
 }
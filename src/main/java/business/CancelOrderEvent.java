@@ -0,0 +1,60 @@
+package business;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Flight Recorder event for OrderBusiness.cancelOrder, with the time spent in each stage
+@Name("gerenciador.CancelOrder")
+@Label("Cancel Order")
+@Category({"Gerenciador de Pedidos", "Orders"})
+@Description("Order cancellation, split into validation, item lookup, restock and order update")
+class CancelOrderEvent extends Event {
+    @Label("Order Id")
+    int orderId;
+
+    @Label("Item Count")
+    int itemCount;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    @Label("Failure")
+    String failure;
+
+    @Label("Begin Transaction")
+    @Description("Waiting for the database write lock")
+    @Timespan(Timespan.NANOSECONDS)
+    long beginTransactionDuration;
+
+    @Label("Validate")
+    @Description("Loading the order and checking its status")
+    @Timespan(Timespan.NANOSECONDS)
+    long validateDuration;
+
+    @Label("Load Items")
+    @Timespan(Timespan.NANOSECONDS)
+    long loadItemsDuration;
+
+    @Label("Stock Update")
+    @Timespan(Timespan.NANOSECONDS)
+    long stockUpdateDuration;
+
+    @Label("Update Order")
+    @Timespan(Timespan.NANOSECONDS)
+    long updateOrderDuration;
+
+    // Transient fields are not recorded
+    private transient long stageStart = System.nanoTime();
+
+    // Time since the previous stage ended (or the event was created), and starts the next stage
+    long lap() {
+        long now = System.nanoTime();
+        long elapsed = now - stageStart;
+        stageStart = now;
+        return elapsed;
+    }
+}
@@ -0,0 +1,68 @@
+package business;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Flight Recorder event for OrderBusiness.createOrder, with the time spent in each stage.
+// Costs next to nothing unless a recording with this event enabled is running.
+@Name("gerenciador.CreateOrder")
+@Label("Create Order")
+@Category({"Gerenciador de Pedidos", "Orders"})
+@Description("Order creation, split into validation, address, order insert, item insert and stock update")
+class CreateOrderEvent extends Event {
+    @Label("User Id")
+    int userId;
+
+    @Label("Order Id")
+    int orderId;
+
+    @Label("Item Count")
+    int itemCount;
+
+    @Label("Succeeded")
+    boolean succeeded;
+
+    @Label("Failure")
+    String failure;
+
+    @Label("Validate")
+    @Timespan(Timespan.NANOSECONDS)
+    long validateDuration;
+
+    @Label("Begin Transaction")
+    @Description("Waiting for the database write lock")
+    @Timespan(Timespan.NANOSECONDS)
+    long beginTransactionDuration;
+
+    @Label("Address")
+    @Description("Looking up and checking an existing address, or creating a new one")
+    @Timespan(Timespan.NANOSECONDS)
+    long addressDuration;
+
+    @Label("Insert Order")
+    @Timespan(Timespan.NANOSECONDS)
+    long insertOrderDuration;
+
+    @Label("Insert Items")
+    @Timespan(Timespan.NANOSECONDS)
+    long insertItemsDuration;
+
+    @Label("Stock Update")
+    @Timespan(Timespan.NANOSECONDS)
+    long stockUpdateDuration;
+
+    // Transient fields are not recorded
+    private transient long stageStart = System.nanoTime();
+
+    // Time since the previous stage ended (or the event was created), and starts the next stage
+    long lap() {
+        long now = System.nanoTime();
+        long elapsed = now - stageStart;
+        stageStart = now;
+        return elapsed;
+    }
+}
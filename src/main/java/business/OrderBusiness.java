@@ -2,71 +2,78 @@ package business;
 
 import entity.*;
 import dto.*;
+import repository.Page;
+import repository.ProductRepositoryInterface;
+import repository.Query;
 import repository.RepositoryInterface;
+import repository.TransactionManager;
+import repository.OrderRepositoryInterface;
+import repository.OrderItemsRepositoryInterface;
+import log.Log;
 import java.util.List;
 import java.util.Date;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class OrderBusiness {
-    private RepositoryInterface<Order> orderRepository;
-    private RepositoryInterface<OrderItems> orderItemsRepository;
+    private OrderRepositoryInterface orderRepository;
+    private OrderItemsRepositoryInterface orderItemsRepository;
     private RepositoryInterface<User> userRepository;
     private RepositoryInterface<Address> addressRepository;
-    private RepositoryInterface<Product> productRepository;
+    private ProductRepositoryInterface productRepository;
+    private TransactionManager transactionManager;
 
-    public OrderBusiness(RepositoryInterface<Order> orderRepository, RepositoryInterface<OrderItems> orderItemsRepository,
+    public OrderBusiness(OrderRepositoryInterface orderRepository, OrderItemsRepositoryInterface orderItemsRepository,
                         RepositoryInterface<User> userRepository, RepositoryInterface<Address> addressRepository,
-                        RepositoryInterface<Product> productRepository) {
+                        ProductRepositoryInterface productRepository, TransactionManager transactionManager) {
         this.orderRepository = orderRepository;
         this.orderItemsRepository = orderItemsRepository;
         this.userRepository = userRepository;
         this.addressRepository = addressRepository;
         this.productRepository = productRepository;
+        this.transactionManager = transactionManager;
     }
 
     public Order createOrder(int userId, AddressDTO addressDTO, Integer existingAddressId, List<OrderItemsDTO> orderItems) {
+        CreateOrderEvent event = new CreateOrderEvent();
+        event.begin();
+        event.userId = userId;
+        event.itemCount = orderItems != null ? orderItems.size() : 0;
         try {
-            System.out.println("[ORDER] Starting order creation for user ID: " + userId);
+            Log.debug("order.create.start", "userId", userId, "items", orderItems != null ? orderItems.size() : 0);
 
             // Validate user exists
             User user = userRepository.get(userId);
             if (user == null) {
                 throw new RuntimeException("Usuário não encontrado com ID: " + userId);
             }
-            System.out.println("[ORDER] User found: " + user.getName());
+            event.validateDuration += event.lap();
 
-            // Handle address - either create new or use existing
-            Address address;
+            // Validate address - either an existing one or data for a new one
+            Address existingAddress = null;
             if (existingAddressId != null) {
-                System.out.println("[ORDER] Using existing address ID: " + existingAddressId);
-                address = addressRepository.get(existingAddressId);
-                if (address == null) {
+                existingAddress = addressRepository.get(existingAddressId);
+                if (existingAddress == null) {
                     throw new RuntimeException("Endereço não encontrado com ID: " + existingAddressId);
                 }
                 // Verify address belongs to user
-                if (address.getUserId() != userId) {
+                if (existingAddress.getUserId() != userId) {
                     throw new RuntimeException("Endereço não pertence ao usuário");
                 }
-                System.out.println("[ORDER] Address found and validated");
-            } else if (addressDTO != null) {
-                // Create new address
-                System.out.println("[ORDER] Creating new address");
-                address = new Address(0, userId, addressDTO.getStreet(), addressDTO.getNumber(),
-                                    addressDTO.getNeighborhood(), addressDTO.getZipCode(),
-                                    addressDTO.getComplement(), addressDTO.getCity(), addressDTO.getState());
-                address = addressRepository.create(address);
-                System.out.println("[ORDER] New address created with ID: " + address.getId());
-            } else {
+            } else if (addressDTO == null) {
                 throw new RuntimeException("É necessário fornecer um endereço existente ou dados para criar um novo");
             }
+            event.addressDuration += event.lap();
 
             // Validate order items
             if (orderItems == null || orderItems.isEmpty()) {
                 throw new RuntimeException("O pedido deve conter pelo menos um item");
             }
-            System.out.println("[ORDER] Validating " + orderItems.size() + " order items");
 
-            // Validate products and stock
+            // Validate products and stock, keeping each product for the item prices
+            Map<Integer, Product> productsById = new HashMap<>();
             for (OrderItemsDTO item : orderItems) {
                 Product product = productRepository.get(item.getProductId());
                 if (product == null) {
@@ -83,49 +90,87 @@ public class OrderBusiness {
                 if (item.getAmount() <= 0) {
                     throw new RuntimeException("Quantidade deve ser maior que zero");
                 }
-                System.out.println("[ORDER] Product validated: " + product.getName() + ", amount: " + item.getAmount() + ", current price: " + product.getValue());
+                productsById.put(product.getId(), product);
+                Log.debug("order.create.item_validated", "productId", product.getId(), "amount", item.getAmount(), "price", product.getValue());
             }
+            event.validateDuration += event.lap();
 
-            // Create the order
-            System.out.println("[ORDER] Creating order entity");
-            Order order = new Order(0, user, address, "PENDING");
-            order = orderRepository.create(order);
-            System.out.println("[ORDER] Order created with ID: " + order.getId());
-
-            // Create order items and update product stock
-            System.out.println("[ORDER] Creating order items");
-            for (OrderItemsDTO itemDTO : orderItems) {
-                Product product = productRepository.get(itemDTO.getProductId());
-
-                // Create order item using the product's current price from database
-                OrderItems orderItem = new OrderItems(order, product, itemDTO.getAmount(), product.getValue());
-                orderItem = orderItemsRepository.create(orderItem);
-                System.out.println("[ORDER] Order item created with ID: " + orderItem.getId() + " using current price: " + product.getValue());
-
-                // Update product stock
-                product.setAvailableAmount(product.getAvailableAmount() - itemDTO.getAmount());
-                productRepository.update(product);
-                System.out.println("[ORDER] Product stock updated: " + product.getName() + ", new stock: " + product.getAvailableAmount());
-            }
+            // Address, order, items and stock are written in a single transaction
+            final Address validatedAddress = existingAddress;
+            Order order = transactionManager.inTransaction(() -> {
+                event.beginTransactionDuration = event.lap();
+                Address address = validatedAddress;
+                if (address == null) {
+                    address = new Address(0, userId, addressDTO.getStreet(), addressDTO.getNumber(),
+                                        addressDTO.getNeighborhood(), addressDTO.getZipCode(),
+                                        addressDTO.getComplement(), addressDTO.getCity(), addressDTO.getState());
+                    address = addressRepository.create(address);
+                    Log.debug("order.create.address_created", "addressId", address.getId());
+                }
+                event.addressDuration += event.lap();
+
+                // Item count and total are stored on the order, computed from each product's current price
+                Order created = new Order(0, user, address, "PENDING");
+                created.setItemCount(orderItems.size());
+                double totalValue = 0.0;
+                for (OrderItemsDTO itemDTO : orderItems) {
+                    totalValue += productsById.get(itemDTO.getProductId()).getValue() * itemDTO.getAmount();
+                }
+                created.setTotalValue(totalValue);
+                created = orderRepository.create(created);
+                event.insertOrderDuration = event.lap();
+
+                // Create order items using each product's current price
+                List<OrderItems> items = new ArrayList<>();
+                Map<Integer, Integer> amounts = new LinkedHashMap<>();
+                for (OrderItemsDTO itemDTO : orderItems) {
+                    Product product = productsById.get(itemDTO.getProductId());
+                    items.add(new OrderItems(created, product, itemDTO.getAmount(), product.getValue()));
+                    amounts.merge(product.getId(), itemDTO.getAmount(), Integer::sum);
+                }
+                orderItemsRepository.createAll(items);
+                event.insertItemsDuration = event.lap();
+
+                // Guarded decrement: stock may have changed since validation, so any failure rolls the order back
+                Map<Integer, Boolean> decremented = productRepository.decrementStock(amounts);
+                for (Map.Entry<Integer, Boolean> result : decremented.entrySet()) {
+                    if (!result.getValue()) {
+                        throw new RuntimeException("Estoque insuficiente para o produto: " +
+                                                 productsById.get(result.getKey()).getName());
+                    }
+                }
+                event.stockUpdateDuration = event.lap();
+
+                return created;
+            });
 
-            System.out.println("[ORDER] Order creation completed successfully");
+            Log.info("order.created", "orderId", order.getId(), "userId", userId,
+                "items", order.getItemCount(), "total", order.getTotalValue());
+            event.orderId = order.getId();
+            event.succeeded = true;
             return order;
         } catch (Exception e) {
-            System.err.println("[ORDER] Error during order creation: " + e.getMessage());
-            e.printStackTrace();
+            event.failure = e.getMessage();
+            // Logged by the caller, which also sees request-level failures
             throw new RuntimeException("Erro ao criar pedido: " + e.getMessage());
+        } finally {
+            event.commit();
         }
     }
 
     public List<Order> getOrdersByUserId(int userId) {
-        List<Order> allOrders = orderRepository.list();
-        List<Order> userOrders = new ArrayList<>();
-        for (Order order : allOrders) {
-            if (order.getUser().getId() == userId) {
-                userOrders.add(order);
-            }
-        }
-        return userOrders;
+        return orderRepository.findByUserId(userId);
+    }
+
+    public Page<Order> getOrdersPageByUserId(int userId, Integer afterId, int limit) {
+        Query query = Page.keyset(Query.where("user_id", Query.Operator.EQ, userId), afterId, limit);
+        return Page.fromLookahead(orderRepository.find(query), limit, Order::getId);
+    }
+
+    // Page of a user's orders with item count and total, computed in one grouped query
+    public Page<OrderSummaryDTO> getOrderSummariesPageByUserId(int userId, Integer afterId, int limit) {
+        Query query = Page.keyset(Query.where("user_id", Query.Operator.EQ, userId), afterId, limit);
+        return Page.fromLookahead(orderRepository.findSummaries(query), limit, summary -> summary.getOrder().getId());
     }
 
     public Order getOrderById(int orderId) {
@@ -133,14 +178,7 @@ public class OrderBusiness {
     }
 
     public List<OrderItems> getOrderItems(int orderId) {
-        List<OrderItems> allOrderItems = orderItemsRepository.list();
-        List<OrderItems> orderItems = new ArrayList<>();
-        for (OrderItems item : allOrderItems) {
-            if (item.getOrder().getId() == orderId) {
-                orderItems.add(item);
-            }
-        }
-        return orderItems;
+        return orderItemsRepository.findByOrderId(orderId);
     }
 
     public Order updateOrderStatus(int orderId, String orderStatus) {
@@ -178,102 +216,112 @@ public class OrderBusiness {
     }
 
     public void cancelOrder(int orderId) {
-        Order order = orderRepository.get(orderId);
-        if (order == null) {
-            throw new RuntimeException("Pedido não encontrado com ID: " + orderId);
-        }
-
-        // Only allow cancellation if order is still pending or paid (not yet shipped)
-        if (order.getOrderStatus() != Order.OrderStatus.PENDING &&
-            order.getOrderStatus() != Order.OrderStatus.PAID) {
-            throw new RuntimeException("Não é possível cancelar um pedido com status: " + order.getOrderStatus());
+        CancelOrderEvent event = new CancelOrderEvent();
+        event.begin();
+        event.orderId = orderId;
+        try {
+            cancelOrder(orderId, event);
+            event.succeeded = true;
+        } catch (RuntimeException e) {
+            event.failure = e.getMessage();
+            throw e;
+        } finally {
+            event.commit();
         }
+    }
 
-        // Return products to stock
-        List<OrderItems> orderItems = getOrderItems(orderId);
-        for (OrderItems item : orderItems) {
-            Product product = productRepository.get(item.getProduct().getId());
-            product.setAvailableAmount(product.getAvailableAmount() + item.getAmount());
-            productRepository.update(product);
-        }
+    private void cancelOrder(int orderId, CancelOrderEvent event) {
+        // Status check, restock and status change commit together, so an order is never restocked twice
+        transactionManager.inTransaction(() -> {
+            event.beginTransactionDuration = event.lap();
+            Order order = orderRepository.get(orderId);
+            if (order == null) {
+                throw new RuntimeException("Pedido não encontrado com ID: " + orderId);
+            }
 
-        // Update order status to cancelled
-        order.setOrderStatus(Order.OrderStatus.CANCELLED);
-        order.setUpdatedAt(new Date());
-        orderRepository.update(order);
+            // Only allow cancellation if order is still pending or paid (not yet shipped)
+            if (order.getOrderStatus() != Order.OrderStatus.PENDING &&
+                order.getOrderStatus() != Order.OrderStatus.PAID) {
+                throw new RuntimeException("Não é possível cancelar um pedido com status: " + order.getOrderStatus());
+            }
+            event.validateDuration = event.lap();
+
+            // Return products to stock
+            List<OrderItems> items = getOrderItems(orderId);
+            event.itemCount = items.size();
+            event.loadItemsDuration = event.lap();
+            Map<Integer, Integer> stockDeltas = new LinkedHashMap<>();
+            double totalValue = 0.0;
+            for (OrderItems item : items) {
+                stockDeltas.merge(item.getProduct().getId(), item.getAmount(), Integer::sum);
+                totalValue += item.getTotalValue();
+            }
+            productRepository.addStock(stockDeltas);
+            event.stockUpdateDuration = event.lap();
+
+            // Update order status to cancelled; the items are already loaded, so refresh the stored totals too
+            order.setItemCount(items.size());
+            order.setTotalValue(totalValue);
+            order.setOrderStatus(Order.OrderStatus.CANCELLED);
+            order.setUpdatedAt(new Date());
+            orderRepository.update(order);
+            event.updateOrderDuration = event.lap();
+        });
     }
 
+    // The total is stored on the order when it is written, so this doesn't read the items
     public double calculateOrderTotal(int orderId) {
-        try {
-            System.out.println("[ORDER] Calculating total for order ID: " + orderId);
-            List<OrderItems> orderItems = getOrderItems(orderId);
-            System.out.println("[ORDER] Found " + orderItems.size() + " items for order " + orderId);
-
-            double total = 0.0;
-            for (OrderItems item : orderItems) {
-                double itemTotal = item.getTotalValue();
-                System.out.println("[ORDER] Item total: " + itemTotal);
-                total += itemTotal;
-            }
-            System.out.println("[ORDER] Final total: " + total);
-            return total;
-        } catch (Exception e) {
-            System.err.println("[ORDER] Error calculating order total: " + e.getMessage());
-            e.printStackTrace();
-            throw new RuntimeException("Erro ao calcular total do pedido: " + e.getMessage());
+        Order order = orderRepository.get(orderId);
+        if (order == null) {
+            throw new RuntimeException("Pedido não encontrado com ID: " + orderId);
         }
+        return order.getTotalValue();
     }
 
     public controller.OrderHttpController.CleanOrderResponse getOrderDetailsById(int orderId) {
+        OrderDetailsEvent event = new OrderDetailsEvent();
+        event.begin();
+        event.orderId = orderId;
+        long start = System.nanoTime();
         try {
-            // Get the order
-            Order order = orderRepository.get(orderId);
-            if (order == null) {
+            // Order, user, address, items, products and total all come from a single joined query
+            OrderDetailsDTO details = orderRepository.findDetailsById(orderId);
+            long queried = System.nanoTime();
+            event.queryDuration = queried - start;
+            if (details == null) {
                 return null;
             }
+            event.found = true;
+            event.itemCount = details.getItems().size();
 
-            // Get the user details
-            User user = userRepository.get(order.getUser().getId());
-            if (user == null) {
-                throw new RuntimeException("Usuário não encontrado para o pedido");
-            }
+            Order order = details.getOrder();
+            User user = order.getUser();
+            Address address = order.getAddress();
 
-            // Get the address details
-            Address address = addressRepository.get(order.getAddress().getId());
-            if (address == null) {
-                throw new RuntimeException("Endereço não encontrado para o pedido");
-            }
-
-            // Get order items
-            List<OrderItems> orderItemsList = getOrderItems(orderId);
             List<controller.OrderHttpController.CleanOrderItem> cleanItems = new ArrayList<>();
-
-            for (OrderItems item : orderItemsList) {
-                // Get product details
-                Product product = productRepository.get(item.getProduct().getId());
-                if (product != null) {
-                    controller.OrderHttpController.CleanProduct cleanProduct =
-                        new controller.OrderHttpController.CleanProduct(
-                            product.getId(),
-                            product.getName(),
-                            product.getDescription() != null ? product.getDescription() : "",
-                            product.getAvailableAmount(),
-                            product.getImage(),
-                            product.getDeletedAt() != null ? product.getDeletedAt().toString() : null,
-                            product.isDeleted()
-                        );
-
-                    controller.OrderHttpController.CleanOrderItem cleanItem =
-                        new controller.OrderHttpController.CleanOrderItem(
-                            item.getId(),
-                            cleanProduct,
-                            item.getAmount(),
-                            item.getValue(),
-                            item.getTotalValue()
-                        );
-
-                    cleanItems.add(cleanItem);
-                }
+            for (OrderItems item : details.getItems()) {
+                Product product = item.getProduct();
+                controller.OrderHttpController.CleanProduct cleanProduct =
+                    new controller.OrderHttpController.CleanProduct(
+                        product.getId(),
+                        product.getName(),
+                        product.getDescription() != null ? product.getDescription() : "",
+                        product.getAvailableAmount(),
+                        product.getImage(),
+                        product.getDeletedAt() != null ? product.getDeletedAt().toString() : null,
+                        product.isDeleted()
+                    );
+
+                controller.OrderHttpController.CleanOrderItem cleanItem =
+                    new controller.OrderHttpController.CleanOrderItem(
+                        item.getId(),
+                        cleanProduct,
+                        item.getAmount(),
+                        item.getValue(),
+                        item.getTotalValue()
+                    );
+
+                cleanItems.add(cleanItem);
             }
 
             // Create clean user
@@ -309,15 +357,16 @@ public class OrderBusiness {
                     order.getUpdatedAt().getTime()
                 );
 
-            // Calculate total value
-            double totalValue = calculateOrderTotal(orderId);
-
-            return new controller.OrderHttpController.CleanOrderResponse(cleanOrder, cleanItems, totalValue);
+            controller.OrderHttpController.CleanOrderResponse response =
+                new controller.OrderHttpController.CleanOrderResponse(cleanOrder, cleanItems, details.getTotalValue());
+            event.mappingDuration = System.nanoTime() - queried;
+            return response;
 
         } catch (Exception e) {
-            System.err.println("Error getting order details: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("order.details.failed", e, "orderId", orderId);
             throw new RuntimeException("Erro ao buscar detalhes do pedido: " + e.getMessage());
+        } finally {
+            event.commit();
         }
     }
 }
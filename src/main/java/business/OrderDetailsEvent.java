@@ -0,0 +1,32 @@
+package business;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Flight Recorder event for OrderBusiness.getOrderDetailsById
+@Name("gerenciador.OrderDetails")
+@Label("Order Details")
+@Category({"Gerenciador de Pedidos", "Orders"})
+@Description("Loading an order with its items, split into the joined query and building the response")
+class OrderDetailsEvent extends Event {
+    @Label("Order Id")
+    int orderId;
+
+    @Label("Found")
+    boolean found;
+
+    @Label("Item Count")
+    int itemCount;
+
+    @Label("Query")
+    @Timespan(Timespan.NANOSECONDS)
+    long queryDuration;
+
+    @Label("Mapping")
+    @Timespan(Timespan.NANOSECONDS)
+    long mappingDuration;
+}
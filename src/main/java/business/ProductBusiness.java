@@ -1,6 +1,8 @@
 package business;
 
 import entity.Product;
+import repository.Page;
+import repository.Query;
 import repository.RepositoryInterface;
 
 import java.util.List;
@@ -64,6 +66,11 @@ public class ProductBusiness {
         return productRepository.list();
     }
 
+    public Page<Product> getProductsPage(Integer afterId, int limit) throws Exception {
+        Query query = Page.keyset(Query.where("deleted_at", Query.Operator.IS_NULL), afterId, limit);
+        return Page.fromLookahead(productRepository.find(query), limit, Product::getId);
+    }
+
     public Product getProductById(int id) throws Exception {
         Product product = productRepository.get(id);
         if (product == null) {
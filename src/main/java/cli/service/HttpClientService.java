@@ -2,12 +2,14 @@ package cli.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.URI;
 import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 
 public class HttpClientService {
     private final HttpClient client;
@@ -22,6 +24,45 @@ public class HttpClientService {
         this.objectMapper = new ObjectMapper();
     }
 
+    // Listing endpoints are paginated; follow the Link rel="next" header and merge every page
+    private String getAllPages(String path, String token) throws Exception {
+        ArrayNode items = objectMapper.createArrayNode();
+        String next = path;
+
+        while (next != null) {
+            HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + next))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+
+            if (response.statusCode() != 200) {
+                JsonNode errorResponse = objectMapper.readTree(response.body());
+                throw new Exception(errorResponse.has("error") ? errorResponse.get("error").asText() : errorResponse.path("message").asText());
+            }
+
+            JsonNode page = objectMapper.readTree(response.body());
+            if (!page.isArray()) {
+                return response.body();
+            }
+            items.addAll((ArrayNode) page);
+            next = nextLink(response);
+        }
+
+        return objectMapper.writeValueAsString(items);
+    }
+
+    private String nextLink(HttpResponse<String> response) {
+        Optional<String> link = response.headers().firstValue("Link");
+        if (link.isEmpty() || !link.get().contains("rel=\"next\"")) {
+            return null;
+        }
+        String value = link.get();
+        return value.substring(value.indexOf('<') + 1, value.indexOf('>'));
+    }
+
     // Authentication methods
     public String login(String email, String password) throws Exception {
         String json = objectMapper.writeValueAsString(Map.of(
@@ -81,20 +122,7 @@ public class HttpClientService {
 
     // Product methods
     public String getProducts(String token) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/products"))
-            .header("Authorization", "Bearer " + token)
-            .GET()
-            .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            return response.body();
-        } else {
-            JsonNode errorResponse = objectMapper.readTree(response.body());
-            throw new Exception(errorResponse.get("error").asText());
-        }
+        return getAllPages("/products", token);
     }
 
     public String getProduct(String token, int id) throws Exception {
@@ -167,20 +195,7 @@ public class HttpClientService {
 
     // Address methods
     public String getAddresses(String token) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/addresses"))
-            .header("Authorization", "Bearer " + token)
-            .GET()
-            .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            return response.body();
-        } else {
-            JsonNode errorResponse = objectMapper.readTree(response.body());
-            throw new Exception(errorResponse.get("error").asText());
-        }
+        return getAllPages("/addresses", token);
     }
 
     public void createAddress(String token, Map<String, String> addressData) throws Exception {
@@ -236,20 +251,7 @@ public class HttpClientService {
 
     // Order methods
     public String getOrders(String token) throws Exception {
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(baseUrl + "/orders"))
-            .header("Authorization", "Bearer " + token)
-            .GET()
-            .build();
-
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        if (response.statusCode() == 200) {
-            return response.body();
-        } else {
-            JsonNode errorResponse = objectMapper.readTree(response.body());
-            throw new Exception(errorResponse.get("error").asText());
-        }
+        return getAllPages("/orders", token);
     }
 
     public String getOrder(String token, int id) throws Exception {
@@ -3,11 +3,10 @@ package controller;
 import business.AddressBusiness;
 import entity.Address;
 import io.javalin.http.Context;
+import repository.Page;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.util.List;
-
 public class AddressHttpController {
     private final AddressBusiness addressBusiness;
     private final ObjectMapper objectMapper;
@@ -72,7 +71,7 @@ public class AddressHttpController {
         }
     }
 
-    // READ - GET /addresses
+    // READ - GET /addresses?limit=N&after=<cursor>
     public void getAllAddresses(Context ctx) {
         try {
             Integer userId = ctx.attribute("userId"); // Get from authentication middleware
@@ -80,10 +79,14 @@ public class AddressHttpController {
                 ctx.status(401).json(new ErrorResponse("Usuário não autenticado"));
                 return;
             }
-            List<Address> addresses = addressBusiness.getAllAddresses(userId);
-            ctx.status(200).json(addresses.stream()
+            int limit = Pagination.limit(ctx);
+            Page<Address> page = addressBusiness.getAddressesPage(userId, Pagination.after(ctx), limit);
+            Pagination.writeNextLink(ctx, page, limit);
+            ctx.status(200).json(page.getItems().stream()
                 .map(AddressResponse::new)
                 .toArray(AddressResponse[]::new));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             ctx.status(500).json(new ErrorResponse(e.getMessage()));
         }
@@ -0,0 +1,45 @@
+package controller;
+
+import io.javalin.http.Context;
+import repository.sqlite.SlowQueryLog;
+
+import java.util.List;
+
+public class AdminHttpController {
+    private final SlowQueryLog slowQueryLog;
+
+    // slowQueryLog is null with in-memory storage or when slow query logging is off
+    public AdminHttpController(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    // GET /admin/slow-queries
+    public void getSlowQueries(Context ctx) {
+        if (slowQueryLog == null) {
+            ctx.status(404).json(new ErrorResponse("Log de consultas lentas desativado ou indisponível para este armazenamento"));
+            return;
+        }
+
+        ctx.json(new SlowQueriesResponse(slowQueryLog));
+    }
+
+    public static class SlowQueriesResponse {
+        public long thresholdMillis;
+        public long recorded;
+        public List<SlowQueryLog.SlowQuery> entries;
+
+        public SlowQueriesResponse(SlowQueryLog slowQueryLog) {
+            this.thresholdMillis = slowQueryLog.getThresholdMillis();
+            this.recorded = slowQueryLog.getRecordedCount();
+            this.entries = slowQueryLog.getEntries();
+        }
+    }
+
+    public static class ErrorResponse {
+        public String error;
+
+        public ErrorResponse(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import io.javalin.http.Context;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import auth.SimpleTokenManager;
+import log.Log;
 
 public class AuthHttpController {
     private final AuthBusiness authBusiness;
@@ -18,34 +19,32 @@ public class AuthHttpController {
 
     public void createUser(Context ctx) {
         try {
-            System.out.println("[AUTH] Creating user - Request body: " + ctx.body());
-
+            // The body holds the password, so it is never logged
             JsonNode json = objectMapper.readTree(ctx.body());
-            System.out.println("[AUTH] Parsed JSON successfully");
 
             // Validate required fields exist
             if (json.get("name") == null) {
-                System.err.println("[AUTH] ERROR: Missing 'name' field");
+                Log.debug("auth.register.missing_field", "field", "name");
                 ctx.status(400).json(new ErrorResponse("Campo 'name' é obrigatório"));
                 return;
             }
             if (json.get("email") == null) {
-                System.err.println("[AUTH] ERROR: Missing 'email' field");
+                Log.debug("auth.register.missing_field", "field", "email");
                 ctx.status(400).json(new ErrorResponse("Campo 'email' é obrigatório"));
                 return;
             }
             if (json.get("password") == null) {
-                System.err.println("[AUTH] ERROR: Missing 'password' field");
+                Log.debug("auth.register.missing_field", "field", "password");
                 ctx.status(400).json(new ErrorResponse("Campo 'password' é obrigatório"));
                 return;
             }
             if (json.get("confirmPassword") == null) {
-                System.err.println("[AUTH] ERROR: Missing 'confirmPassword' field");
+                Log.debug("auth.register.missing_field", "field", "confirmPassword");
                 ctx.status(400).json(new ErrorResponse("Campo 'confirmPassword' é obrigatório"));
                 return;
             }
             if (json.get("document") == null) {
-                System.err.println("[AUTH] ERROR: Missing 'document' field");
+                Log.debug("auth.register.missing_field", "field", "document");
                 ctx.status(400).json(new ErrorResponse("Campo 'document' é obrigatório"));
                 return;
             }
@@ -56,36 +55,30 @@ public class AuthHttpController {
             String confirmPassword = json.get("confirmPassword").asText();
             String document = json.get("document").asText();
 
-            System.out.println("[AUTH] Creating user with email: " + email + ", name: " + name);
-
             User user = authBusiness.createUser(name, email, password, confirmPassword, document);
 
-            System.out.println("[AUTH] User created successfully with ID: " + user.getId());
+            Log.info("auth.register.ok", "userId", user.getId());
 
             // Return user without password for security
             ctx.status(201).json(new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getDocument()));
         } catch (Exception e) {
-            System.err.println("[AUTH] ERROR creating user: " + e.getMessage());
-            e.printStackTrace();
+            Log.warn("auth.register.failed", "error", e.getMessage());
             ctx.status(400).json(new ErrorResponse(e.getMessage()));
         }
     }
 
     public void login(Context ctx) {
         try {
-            System.out.println("[AUTH] Login attempt - Request body: " + ctx.body());
-
             JsonNode json = objectMapper.readTree(ctx.body());
-            System.out.println("[AUTH] Parsed JSON successfully");
 
             // Validate required fields exist
             if (json.get("email") == null) {
-                System.err.println("[AUTH] ERROR: Missing 'email' field in login");
+                Log.debug("auth.login.missing_field", "field", "email");
                 ctx.status(400).json(new ErrorResponse("Campo 'email' é obrigatório"));
                 return;
             }
             if (json.get("password") == null) {
-                System.err.println("[AUTH] ERROR: Missing 'password' field in login");
+                Log.debug("auth.login.missing_field", "field", "password");
                 ctx.status(400).json(new ErrorResponse("Campo 'password' é obrigatório"));
                 return;
             }
@@ -93,15 +86,12 @@ public class AuthHttpController {
             String email = json.get("email").asText();
             String password = json.get("password").asText();
 
-            System.out.println("[AUTH] Attempting login for email: " + email);
-
             User user = authBusiness.login(email, password);
 
-            System.out.println("[AUTH] Login successful for user ID: " + user.getId());
+            Log.info("auth.login.ok", "userId", user.getId());
 
             // Generate authentication token
             String token = SimpleTokenManager.generateToken(user.getId());
-            System.out.println("[AUTH] Generated token for user: " + user.getId());
 
             // Return user data with token
             ctx.status(200).json(new LoginResponse(
@@ -112,57 +102,44 @@ public class AuthHttpController {
                 token
             ));
         } catch (Exception e) {
-            System.err.println("[AUTH] ERROR during login: " + e.getMessage());
-            e.printStackTrace();
+            Log.warn("auth.login.failed", "error", e.getMessage());
             ctx.status(401).json(new ErrorResponse(e.getMessage()));
         }
     }
 
     public void logout(Context ctx) {
         try {
-            System.out.println("[AUTH] Logout attempt");
-
             String token = ctx.header("Authorization");
             if (token != null && token.startsWith("Bearer ")) {
                 token = token.substring(7); // Remove "Bearer " prefix
-                System.out.println("[AUTH] Removing token for logout");
                 SimpleTokenManager.removeToken(token);
+                Log.info("auth.logout");
             } else {
-                System.out.println("[AUTH] No valid token found for logout");
+                Log.debug("auth.logout.no_token");
             }
 
-            System.out.println("[AUTH] Logout successful");
             ctx.status(200).json(new MessageResponse("Logout realizado com sucesso"));
         } catch (Exception e) {
-            System.err.println("[AUTH] ERROR during logout: " + e.getMessage());
-            e.printStackTrace();
+            Log.warn("auth.logout.failed", "error", e.getMessage());
             ctx.status(400).json(new ErrorResponse(e.getMessage()));
         }
     }
 
     public void getProfile(Context ctx) {
         try {
-            System.out.println("[AUTH] Getting user profile");
-
             // Authentication is handled by middleware, get userId from context
             Integer userId = ctx.attribute("userId");
             if (userId == null) {
-                System.err.println("[AUTH] ERROR: No userId in context for profile request");
                 ctx.status(401).json(new ErrorResponse("Usuário não autenticado"));
                 return;
             }
 
-            System.out.println("[AUTH] Getting profile for user ID: " + userId);
-
             User user = authBusiness.getUserById(userId);
 
-            System.out.println("[AUTH] Profile retrieved successfully for user: " + user.getEmail());
-
             // Return user profile without password for security
             ctx.status(200).json(new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getDocument()));
         } catch (Exception e) {
-            System.err.println("[AUTH] ERROR getting profile: " + e.getMessage());
-            e.printStackTrace();
+            Log.warn("auth.profile.failed", "userId", ctx.attribute("userId"), "error", e.getMessage());
             ctx.status(404).json(new ErrorResponse(e.getMessage()));
         }
     }
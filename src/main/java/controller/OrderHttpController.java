@@ -5,7 +5,10 @@ import entity.Order;
 import entity.OrderItems;
 import dto.OrderItemsDTO;
 import dto.AddressDTO;
+import dto.OrderSummaryDTO;
 import io.javalin.http.Context;
+import repository.Page;
+import log.Log;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -24,7 +27,6 @@ public class OrderHttpController {
     // CREATE - POST /orders
     public void createOrder(Context ctx) {
         try {
-            System.out.println("[CONTROLLER] Starting order creation request");
             JsonNode json = objectMapper.readTree(ctx.body());
             Integer userId = ctx.attribute("userId"); // From authentication middleware
 
@@ -32,7 +34,6 @@ public class OrderHttpController {
                 ctx.status(401).json(new ErrorResponse("Usuário não autenticado"));
                 return;
             }
-            System.out.println("[CONTROLLER] User ID from token: " + userId);
 
             // Parse address (either new address data or existing address ID)
             AddressDTO addressDTO = null;
@@ -40,7 +41,6 @@ public class OrderHttpController {
 
             if (json.has("addressId") && !json.get("addressId").isNull()) {
                 existingAddressId = json.get("addressId").asInt();
-                System.out.println("[CONTROLLER] Using existing address ID: " + existingAddressId);
             } else if (json.has("address")) {
                 JsonNode addressNode = json.get("address");
                 if (addressNode.get("street") == null || addressNode.get("number") == null ||
@@ -58,7 +58,6 @@ public class OrderHttpController {
                     addressNode.get("city").asText(),
                     addressNode.get("state").asText()
                 );
-                System.out.println("[CONTROLLER] Creating new address");
             } else {
                 ctx.status(400).json(new ErrorResponse("É necessário fornecer 'addressId' ou dados completos do 'address'"));
                 return;
@@ -83,29 +82,18 @@ public class OrderHttpController {
                 );
                 orderItems.add(item);
             }
-            System.out.println("[CONTROLLER] Parsed " + orderItems.size() + " order items");
 
             // Create order
-            System.out.println("[CONTROLLER] Calling business layer to create order");
             Order order = orderBusiness.createOrder(userId, addressDTO, existingAddressId, orderItems);
-            System.out.println("[CONTROLLER] Order created with ID: " + order.getId());
 
             // Get order items to include in response
-            System.out.println("[CONTROLLER] Getting order items for response");
             List<OrderItems> createdItems = orderBusiness.getOrderItems(order.getId());
-            System.out.println("[CONTROLLER] Found " + createdItems.size() + " created items");
 
-            System.out.println("[CONTROLLER] Calculating order total");
-            double totalValue = orderBusiness.calculateOrderTotal(order.getId());
-            System.out.println("[CONTROLLER] Total calculated: " + totalValue);
-
-            OrderResponse response = new OrderResponse(order, createdItems, totalValue);
+            OrderResponse response = new OrderResponse(order, createdItems, order.getTotalValue());
             ctx.status(201).json(response);
-            System.out.println("[CONTROLLER] Order creation completed successfully");
 
         } catch (Exception e) {
-            System.err.println("[CONTROLLER] Error creating order: " + e.getMessage());
-            e.printStackTrace();
+            Log.warn("order.create.rejected", "userId", ctx.attribute("userId"), "error", e.getMessage());
             ctx.status(400).json(new ErrorResponse("Erro ao criar pedido: " + e.getMessage()));
         }
     }
@@ -120,15 +108,14 @@ public class OrderHttpController {
 
             // For backward compatibility, still accept old status fields but ignore them
             if (json.has("paymentStatus") || json.has("shippingStatus")) {
-                System.out.println("[ORDER_CONTROLLER] Warning: paymentStatus and shippingStatus are deprecated, use orderStatus only");
+                Log.warn("order.update.deprecated_fields", "orderId", orderId);
             }
 
             Order updatedOrder = orderBusiness.updateOrderStatus(orderId, orderStatus);
 
             List<OrderItems> orderItems = orderBusiness.getOrderItems(orderId);
-            double totalValue = orderBusiness.calculateOrderTotal(orderId);
 
-            OrderResponse response = new OrderResponse(updatedOrder, orderItems, totalValue);
+            OrderResponse response = new OrderResponse(updatedOrder, orderItems, updatedOrder.getTotalValue());
             ctx.json(response);
 
         } catch (NumberFormatException e) {
@@ -138,22 +125,24 @@ public class OrderHttpController {
         }
     }
 
-    // LIST BY USER - GET /orders (uses authenticated user)
+    // LIST BY USER - GET /orders?limit=N&after=<cursor> (uses authenticated user)
     public void listOrdersByUser(Context ctx) {
         try {
             Integer userId = ctx.attribute("userId"); // From authentication middleware
 
-            List<Order> orders = orderBusiness.getOrdersByUserId(userId);
+            int limit = Pagination.limit(ctx);
+            Page<OrderSummaryDTO> page = orderBusiness.getOrderSummariesPageByUserId(userId, Pagination.after(ctx), limit);
+            Pagination.writeNextLink(ctx, page, limit);
             List<OrderSummary> orderSummaries = new ArrayList<>();
 
-            for (Order order : orders) {
-                List<OrderItems> items = orderBusiness.getOrderItems(order.getId());
-                double totalValue = orderBusiness.calculateOrderTotal(order.getId());
-                orderSummaries.add(new OrderSummary(order, items.size(), totalValue));
+            for (OrderSummaryDTO summary : page.getItems()) {
+                orderSummaries.add(new OrderSummary(summary.getOrder(), summary.getItemCount(), summary.getTotalValue()));
             }
 
             ctx.json(orderSummaries);
 
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             ctx.status(500).json(new ErrorResponse("Erro ao buscar pedidos: " + e.getMessage()));
         }
@@ -171,19 +160,21 @@ public class OrderHttpController {
                 return;
             }
 
-            List<Order> orders = orderBusiness.getOrdersByUserId(requestedUserId);
+            int limit = Pagination.limit(ctx);
+            Page<OrderSummaryDTO> page = orderBusiness.getOrderSummariesPageByUserId(requestedUserId, Pagination.after(ctx), limit);
+            Pagination.writeNextLink(ctx, page, limit);
             List<OrderSummary> orderSummaries = new ArrayList<>();
 
-            for (Order order : orders) {
-                List<OrderItems> items = orderBusiness.getOrderItems(order.getId());
-                double totalValue = orderBusiness.calculateOrderTotal(order.getId());
-                orderSummaries.add(new OrderSummary(order, items.size(), totalValue));
+            for (OrderSummaryDTO summary : page.getItems()) {
+                orderSummaries.add(new OrderSummary(summary.getOrder(), summary.getItemCount(), summary.getTotalValue()));
             }
 
             ctx.json(orderSummaries);
 
         } catch (NumberFormatException e) {
             ctx.status(400).json(new ErrorResponse("ID do usuário inválido"));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             ctx.status(500).json(new ErrorResponse("Erro ao buscar pedidos: " + e.getMessage()));
         }
@@ -223,25 +214,19 @@ public class OrderHttpController {
             int orderId = Integer.parseInt(ctx.pathParam("id"));
             Integer userId = ctx.attribute("userId"); // From authentication middleware
 
-            Order order = orderBusiness.getOrderById(orderId);
-            if (order == null) {
+            // Detailed order information, loaded in one query
+            CleanOrderResponse response = orderBusiness.getOrderDetailsById(orderId);
+            if (response == null) {
                 ctx.status(404).json(new ErrorResponse("Pedido não encontrado"));
                 return;
             }
 
             // Verify order belongs to user
-            if (!userId.equals(order.getUser().getId())) {
+            if (!userId.equals(response.order.user.id)) {
                 ctx.status(403).json(new ErrorResponse("Acesso negado"));
                 return;
             }
 
-            // Get detailed order information
-            CleanOrderResponse response = orderBusiness.getOrderDetailsById(orderId);
-            if (response == null) {
-                ctx.status(404).json(new ErrorResponse("Detalhes do pedido não encontrados"));
-                return;
-            }
-
             ctx.json(response);
 
         } catch (NumberFormatException e) {
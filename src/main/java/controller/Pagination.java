@@ -0,0 +1,62 @@
+package controller;
+
+import io.javalin.http.Context;
+import repository.Page;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Keyset pagination parameters shared by the listing endpoints: ?limit=N&after=<cursor>
+public class Pagination {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    public static int limit(Context ctx) {
+        String value = ctx.queryParam("limit");
+        if (value == null || value.isBlank()) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int limit = Integer.parseInt(value.trim());
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Parâmetro 'limit' deve ser maior que zero");
+            }
+            return Math.min(limit, MAX_LIMIT);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parâmetro 'limit' inválido");
+        }
+    }
+
+    public static Integer after(Context ctx) {
+        String cursor = ctx.queryParam("after");
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new IllegalArgumentException("Cursor 'after' inválido");
+            }
+            return Integer.parseInt(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor 'after' inválido");
+        }
+    }
+
+    public static String encodeCursor(int id) {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // The body stays a plain JSON array; the next page is advertised through the Link header
+    public static void writeNextLink(Context ctx, Page<?> page, int limit) {
+        if (!page.hasNext()) {
+            return;
+        }
+        String cursor = encodeCursor(page.getNextAfterId());
+        ctx.header("Link", "<" + ctx.path() + "?limit=" + limit + "&after=" + cursor + ">; rel=\"next\"");
+        ctx.header("X-Next-Cursor", cursor);
+    }
+}
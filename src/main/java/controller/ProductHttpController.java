@@ -3,11 +3,10 @@ package controller;
 import business.ProductBusiness;
 import entity.Product;
 import io.javalin.http.Context;
+import repository.Page;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.util.List;
-
 public class ProductHttpController {
     private final ProductBusiness productBusiness;
     private final ObjectMapper objectMapper;
@@ -54,13 +53,17 @@ public class ProductHttpController {
         }
     }
 
-    // READ - GET /products
+    // READ - GET /products?limit=N&after=<cursor>
     public void getAllProducts(Context ctx) {
         try {
-            List<Product> products = productBusiness.getAllProducts();
-            ctx.status(200).json(products.stream()
+            int limit = Pagination.limit(ctx);
+            Page<Product> page = productBusiness.getProductsPage(Pagination.after(ctx), limit);
+            Pagination.writeNextLink(ctx, page, limit);
+            ctx.status(200).json(page.getItems().stream()
                 .map(ProductResponse::new)
                 .toArray(ProductResponse[]::new));
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).json(new ErrorResponse(e.getMessage()));
         } catch (Exception e) {
             ctx.status(500).json(new ErrorResponse(e.getMessage()));
         }
@@ -0,0 +1,19 @@
+package dto;
+
+import entity.Order;
+import entity.OrderItems;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// An order with its user, address, items and products fully loaded, plus the order total
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderDetailsDTO {
+    private Order order;
+    private List<OrderItems> items;
+    private double totalValue;
+}
@@ -0,0 +1,16 @@
+package dto;
+
+import entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// An order with its item count and total, as shown in order listings
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDTO {
+    private Order order;
+    private int itemCount;
+    private double totalValue;
+}
@@ -33,11 +33,19 @@ public class Order {
     private Date createdAt;
     private Date updatedAt;
 
+    // Denormalized from the order items, so listings don't have to read them
+    private int itemCount;
+    private double totalValue;
+
     // Convenience constructor with String values (for backward compatibility)
     public Order(int id, User user, Address address, String orderStatus) {
         this(id, user, address, OrderStatus.valueOf(orderStatus), new Date(), new Date());
     }
 
+    public Order(int id, User user, Address address, OrderStatus orderStatus, Date createdAt, Date updatedAt) {
+        this(id, user, address, orderStatus, createdAt, updatedAt, 0, 0.0);
+    }
+
     // Custom setter that updates timestamp
     public void setOrderStatus(OrderStatus orderStatus) {
         this.orderStatus = orderStatus;
@@ -0,0 +1,189 @@
+package log;
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Structured, asynchronous logging for the server.
+// Callers record an event name plus key/value pairs; the event goes into a lock-free ring buffer and a
+// background thread formats and writes it, so request threads never wait on the console or a file.
+// When the buffer is full the event is dropped and counted rather than blocking the caller.
+// Fields named like credentials are always written as "***". Values are formatted on the writer thread,
+// so pass values that won't change afterwards (ids, strings, numbers).
+// -Dlog.level (DEBUG, INFO, WARN, ERROR; default INFO), -Dlog.file (default standard output),
+// -Dlog.bufferSize (events, default 8192).
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final Set<String> REDACTED_KEYS = Set.of("password", "confirmpassword", "token", "authorization", "secret");
+
+    private static final Level THRESHOLD = Level.valueOf(System.getProperty("log.level", "INFO").toUpperCase(Locale.ROOT));
+    private static final RingBuffer<Event> buffer = new RingBuffer<>(Integer.getInteger("log.bufferSize", 8192));
+
+    // Stats
+    private static final LongAdder written = new LongAdder();
+    private static final LongAdder dropped = new LongAdder();
+
+    static {
+        Writer output = openOutput();
+        Thread writer = new Thread(() -> writeLoop(output), "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // Whatever is still queued at shutdown gets written
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> drain(output), "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(THRESHOLD) >= 0;
+    }
+
+    public static void debug(String event, Object... fields) {
+        log(Level.DEBUG, event, null, fields);
+    }
+
+    public static void info(String event, Object... fields) {
+        log(Level.INFO, event, null, fields);
+    }
+
+    public static void warn(String event, Object... fields) {
+        log(Level.WARN, event, null, fields);
+    }
+
+    // Writes the stack trace of error after the event line
+    public static void error(String event, Throwable error, Object... fields) {
+        log(Level.ERROR, event, error, fields);
+    }
+
+    private static void log(Level level, String event, Throwable error, Object[] fields) {
+        if (!isEnabled(level)) {
+            return;
+        }
+        Event entry = new Event(System.currentTimeMillis(), level, Thread.currentThread().getName(), event, fields, error);
+        if (!buffer.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    public static long getWrittenCount() {
+        return written.sum();
+    }
+
+    public static long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private static void writeLoop(Writer output) {
+        while (true) {
+            // Flush once the buffer runs dry, so a burst costs one write instead of one per event
+            if (!drain(output)) {
+                LockSupport.parkNanos(1_000_000L);
+            }
+        }
+    }
+
+    // Writes every queued event; false if there was nothing to write
+    private static synchronized boolean drain(Writer output) {
+        boolean wroteAny = false;
+        Event event;
+        try {
+            while ((event = buffer.poll()) != null) {
+                output.write(format(event));
+                written.increment();
+                wroteAny = true;
+            }
+            if (wroteAny) {
+                output.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Erro ao escrever log: " + e.getMessage());
+        }
+        return wroteAny;
+    }
+
+    private static String format(Event event) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(Instant.ofEpochMilli(event.timestamp)).append(' ')
+            .append(event.level).append(' ')
+            .append(event.name)
+            .append(" thread=").append(quote(event.thread));
+
+        Object[] fields = event.fields;
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            String key = String.valueOf(fields[i]);
+            line.append(' ').append(key).append('=');
+            if (REDACTED_KEYS.contains(key.toLowerCase(Locale.ROOT))) {
+                line.append("***");
+            } else {
+                line.append(quote(String.valueOf(fields[i + 1])));
+            }
+        }
+        if (fields.length % 2 != 0) {
+            line.append(" unpaired=").append(quote(String.valueOf(fields[fields.length - 1])));
+        }
+        line.append('\n');
+
+        if (event.error != null) {
+            StringWriter trace = new StringWriter();
+            event.error.printStackTrace(new PrintWriter(trace));
+            line.append(trace);
+        }
+        return line.toString();
+    }
+
+    // Values with spaces, quotes, '=' or line breaks are quoted so every event stays on one parseable line
+    private static String quote(String value) {
+        boolean plain = !value.isEmpty();
+        for (int i = 0; i < value.length() && plain; i++) {
+            char c = value.charAt(i);
+            plain = c > ' ' && c != '"' && c != '=';
+        }
+        if (plain) {
+            return value;
+        }
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r") + '"';
+    }
+
+    private static Writer openOutput() {
+        String file = System.getProperty("log.file");
+        try {
+            FileOutputStream stream = file != null && !file.isEmpty()
+                ? new FileOutputStream(file, true)
+                : new FileOutputStream(FileDescriptor.out);
+            return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro ao abrir arquivo de log: " + file, e);
+        }
+    }
+
+    private static class Event {
+        private final long timestamp;
+        private final Level level;
+        private final String thread;
+        private final String name;
+        private final Object[] fields;
+        private final Throwable error;
+
+        Event(long timestamp, Level level, String thread, String name, Object[] fields, Throwable error) {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.thread = thread;
+            this.name = name;
+            this.fields = fields;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package metrics;
+
+import io.javalin.http.Context;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Request counts by route, method and status, latency histograms by route and method, and requests in flight.
+// Registered as the first before handler and an after handler, so rejected requests (401, 429) are counted too.
+public class HttpMetrics {
+    private static final String START_ATTRIBUTE = "metrics.startNanos";
+
+    private final MetricsRegistry.LabeledCounter requests;
+    private final MetricsRegistry.LabeledHistogram latency;
+    private final LongAdder inFlight = new LongAdder();
+
+    public HttpMetrics(MetricsRegistry registry) {
+        this.requests = registry.counter("http_requests_total", "HTTP requests by route, method and status", "route", "method", "status");
+        this.latency = registry.histogram("http_request_duration_seconds", "HTTP request latency", 1e-6, "route", "method");
+        registry.gauge("http_requests_in_flight", "HTTP requests being handled", inFlight::sum);
+    }
+
+    public void before(Context ctx) {
+        inFlight.increment();
+        ctx.attribute(START_ATTRIBUTE, System.nanoTime());
+    }
+
+    public void after(Context ctx) {
+        Long start = ctx.attribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        inFlight.decrement();
+
+        long micros = (System.nanoTime() - start) / 1000;
+        String route = routeOf(ctx);
+        String method = ctx.method().name();
+        requests.increment(route, method, String.valueOf(ctx.statusCode()));
+        latency.record(micros, route, method);
+    }
+
+    // The route template (e.g. /orders/{id}) keeps label values bounded; requests that matched no route, or were
+    // rejected by a before filter ahead of routing, share one label
+    private static String routeOf(Context ctx) {
+        try {
+            String route = ctx.endpointHandlerPath();
+            return route.startsWith("/") ? route : "unmatched";
+        } catch (RuntimeException e) {
+            return "unmatched";
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package metrics;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+// Named metrics rendered in the Prometheus text exposition format.
+// Components either own labeled counters and histograms created here, or register functions that read
+// their existing stats (pool sizes, cache hits, ...) when the registry is scraped.
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final MathContext SIGNIFICANT_DIGITS = new MathContext(9);
+
+    private final List<Metric> metrics = new CopyOnWriteArrayList<>();
+
+    // A value that can go up and down, read on every scrape
+    public void gauge(String name, String help, DoubleSupplier value) {
+        metrics.add(new FunctionMetric(name, help, "gauge", value));
+    }
+
+    // A running total kept elsewhere (e.g. a component's LongAdder), read on every scrape
+    public void counter(String name, String help, DoubleSupplier value) {
+        metrics.add(new FunctionMetric(name, help, "counter", value));
+    }
+
+    // Per-label totals kept elsewhere (e.g. stats per rate-limit group), read on every scrape
+    public void counters(String name, String help, String labelName, Supplier<Map<String, ? extends Number>> values) {
+        metrics.add(new FunctionFamilyMetric(name, help, "counter", labelName, values));
+    }
+
+    public void gauges(String name, String help, String labelName, Supplier<Map<String, ? extends Number>> values) {
+        metrics.add(new FunctionFamilyMetric(name, help, "gauge", labelName, values));
+    }
+
+    public LabeledCounter counter(String name, String help, String... labelNames) {
+        LabeledCounter counter = new LabeledCounter(name, help, labelNames);
+        metrics.add(counter);
+        return counter;
+    }
+
+    // Rendered as a summary with p50, p99 and p999, scaled by unitScale (e.g. 1e-6 for microseconds to seconds)
+    public LabeledHistogram histogram(String name, String help, double unitScale, String... labelNames) {
+        LabeledHistogram histogram = new LabeledHistogram(name, help, unitScale, labelNames);
+        metrics.add(histogram);
+        return histogram;
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Metric metric : metrics) {
+            out.append("# HELP ").append(metric.name).append(' ').append(metric.help).append('\n');
+            out.append("# TYPE ").append(metric.name).append(' ').append(metric.type).append('\n');
+            metric.render(out);
+        }
+        return out.toString();
+    }
+
+    private abstract static class Metric {
+        final String name;
+        final String help;
+        final String type;
+
+        Metric(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        abstract void render(StringBuilder out);
+    }
+
+    private static class FunctionMetric extends Metric {
+        private final DoubleSupplier value;
+
+        FunctionMetric(String name, String help, String type, DoubleSupplier value) {
+            super(name, help, type);
+            this.value = value;
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            out.append(name).append(' ').append(formatValue(value.getAsDouble())).append('\n');
+        }
+    }
+
+    private static class FunctionFamilyMetric extends Metric {
+        private final String labelName;
+        private final Supplier<Map<String, ? extends Number>> values;
+
+        FunctionFamilyMetric(String name, String help, String type, String labelName, Supplier<Map<String, ? extends Number>> values) {
+            super(name, help, type);
+            this.labelName = labelName;
+            this.values = values;
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            for (Map.Entry<String, ? extends Number> entry : values.get().entrySet()) {
+                out.append(name).append('{').append(labelName).append("=\"").append(escape(entry.getKey())).append("\"} ")
+                   .append(formatValue(entry.getValue().doubleValue())).append('\n');
+            }
+        }
+    }
+
+    public static class LabeledCounter extends Metric {
+        private final String[] labelNames;
+        private final ConcurrentHashMap<List<String>, LongAdder> values = new ConcurrentHashMap<>();
+
+        LabeledCounter(String name, String help, String[] labelNames) {
+            super(name, help, "counter");
+            this.labelNames = labelNames;
+        }
+
+        public void increment(String... labelValues) {
+            values.computeIfAbsent(Arrays.asList(labelValues), key -> new LongAdder()).increment();
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            for (Map.Entry<List<String>, LongAdder> entry : sorted(values).entrySet()) {
+                out.append(name);
+                appendLabels(out, labelNames, entry.getKey(), null);
+                out.append(' ').append(entry.getValue().sum()).append('\n');
+            }
+        }
+    }
+
+    public static class LabeledHistogram extends Metric {
+        private final String[] labelNames;
+        private final double unitScale;
+        private final ConcurrentHashMap<List<String>, Histogram> values = new ConcurrentHashMap<>();
+
+        LabeledHistogram(String name, String help, double unitScale, String[] labelNames) {
+            super(name, help, "summary");
+            this.labelNames = labelNames;
+            this.unitScale = unitScale;
+        }
+
+        public void record(long value, String... labelValues) {
+            values.computeIfAbsent(Arrays.asList(labelValues), key -> new Histogram()).record(value);
+        }
+
+        @Override
+        void render(StringBuilder out) {
+            for (Map.Entry<List<String>, Histogram> entry : sorted(values).entrySet()) {
+                Histogram histogram = entry.getValue();
+                for (double quantile : QUANTILES) {
+                    out.append(name);
+                    appendLabels(out, labelNames, entry.getKey(), String.valueOf(quantile));
+                    out.append(' ').append(formatValue(histogram.quantile(quantile) * unitScale)).append('\n');
+                }
+                out.append(name).append("_sum");
+                appendLabels(out, labelNames, entry.getKey(), null);
+                out.append(' ').append(formatValue(histogram.getSum() * unitScale)).append('\n');
+                out.append(name).append("_count");
+                appendLabels(out, labelNames, entry.getKey(), null);
+                out.append(' ').append(histogram.getCount()).append('\n');
+            }
+        }
+    }
+
+    // Stable output order, so consecutive scrapes are easy to compare by eye
+    private static <V> Map<List<String>, V> sorted(Map<List<String>, V> values) {
+        Map<List<String>, V> sorted = new TreeMap<>((a, b) -> String.join("\u0000", a).compareTo(String.join("\u0000", b)));
+        sorted.putAll(values);
+        return sorted;
+    }
+
+    private static void appendLabels(StringBuilder out, String[] names, List<String> values, String quantile) {
+        List<String> pairs = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            pairs.add(names[i] + "=\"" + escape(i < values.size() ? values.get(i) : "") + "\"");
+        }
+        if (quantile != null) {
+            pairs.add("quantile=\"" + quantile + "\"");
+        }
+        if (!pairs.isEmpty()) {
+            out.append('{').append(String.join(",", pairs)).append('}');
+        }
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String formatValue(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return String.valueOf((long) value);
+        }
+        // Nine significant digits hides binary rounding noise such as 0.005503999999999999
+        return new BigDecimal(value).round(SIGNIFICANT_DIGITS).stripTrailingZeros().toPlainString();
+    }
+}
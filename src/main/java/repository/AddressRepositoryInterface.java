@@ -0,0 +1,9 @@
+package repository;
+
+import entity.Address;
+
+import java.util.List;
+
+public interface AddressRepositoryInterface extends RepositoryInterface<Address> {
+    List<Address> findByUserId(int userId);
+}
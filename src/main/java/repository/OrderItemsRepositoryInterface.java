@@ -0,0 +1,12 @@
+package repository;
+
+import entity.OrderItems;
+
+import java.util.List;
+
+public interface OrderItemsRepositoryInterface extends RepositoryInterface<OrderItems> {
+    List<OrderItems> findByOrderId(int orderId);
+
+    // Inserts all items with multi-row inserts and sets every generated id
+    List<OrderItems> createAll(List<OrderItems> orderItems);
+}
@@ -0,0 +1,23 @@
+package repository;
+
+import dto.OrderDetailsDTO;
+import dto.OrderSummaryDTO;
+import entity.Order;
+
+import java.util.List;
+
+public interface OrderRepositoryInterface extends RepositoryInterface<Order> {
+    List<Order> findByUserId(int userId);
+
+    // Order with user, address, items and products loaded together; null if the order does not exist
+    OrderDetailsDTO findDetailsById(int orderId);
+
+    // Orders matching the query, each with its item count and total computed by the storage
+    List<OrderSummaryDTO> findSummaries(Query query);
+
+    // Number of orders whose stored item count or total differs from their items
+    int countInconsistentTotals();
+
+    // Recomputes the stored item count and total of every order from its items; returns how many changed
+    int rebuildTotals();
+}
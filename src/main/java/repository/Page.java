@@ -0,0 +1,44 @@
+package repository;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+// One page of a keyset (id-ordered) listing. nextAfterId is the id to resume after, or null on the last page.
+public class Page<T> {
+    private final List<T> items;
+    private final Integer nextAfterId;
+
+    public Page(List<T> items, Integer nextAfterId) {
+        this.items = items;
+        this.nextAfterId = nextAfterId;
+    }
+
+    // Builds a page from rows fetched with limit + 1: the extra row only signals that more rows exist
+    public static <T> Page<T> fromLookahead(List<T> rows, int limit, ToIntFunction<T> idOf) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new Page<>(items, idOf.applyAsInt(items.get(limit - 1)));
+    }
+
+    // Adds the keyset condition and ordering to a query, fetching one extra row
+    public static Query keyset(Query query, Integer afterId, int limit) {
+        if (afterId != null) {
+            query.and("id", Query.Operator.GT, afterId);
+        }
+        return query.orderBy("id").limit(limit + 1);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Integer getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+}
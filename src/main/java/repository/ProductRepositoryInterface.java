@@ -0,0 +1,16 @@
+package repository;
+
+import entity.Product;
+
+import java.util.Map;
+
+public interface ProductRepositoryInterface extends RepositoryInterface<Product> {
+    // Adds each delta to available_amount in one batch (e.g. returning items to stock)
+    void addStock(Map<Integer, Integer> deltaByProductId);
+
+    // Takes the amount from stock in one guarded statement; false if the product lacks stock or is deleted
+    boolean decrementStock(int productId, int amount);
+
+    // Batched variant: one guarded decrement per product, with the outcome of each
+    Map<Integer, Boolean> decrementStock(Map<Integer, Integer> amountByProductId);
+}
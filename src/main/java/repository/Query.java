@@ -0,0 +1,170 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Backend-neutral query description: AND-ed conditions, sort, limit/offset and an optional projection.
+// Column names refer to the storage columns (e.g. "user_id"), and every repository validates them.
+public class Query {
+
+    public enum Operator {
+        EQ("="),
+        NE("<>"),
+        LT("<"),
+        LE("<="),
+        GT(">"),
+        GE(">="),
+        LIKE("LIKE"),
+        IN("IN"),
+        IS_NULL("IS NULL"),
+        IS_NOT_NULL("IS NOT NULL");
+
+        private final String sql;
+
+        Operator(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public boolean takesValue() {
+            return this != IS_NULL && this != IS_NOT_NULL;
+        }
+    }
+
+    public static class Condition {
+        private final String column;
+        private final Operator operator;
+        private final Object value;
+
+        public Condition(String column, Operator operator, Object value) {
+            this.column = column;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        // For IN conditions: the list of values
+        public List<?> getValues() {
+            return value instanceof Collection ? new ArrayList<>((Collection<?>) value) : List.of(value);
+        }
+    }
+
+    public static class Sort {
+        private final String column;
+        private final boolean ascending;
+
+        public Sort(String column, boolean ascending) {
+            this.column = column;
+            this.ascending = ascending;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public boolean isAscending() {
+            return ascending;
+        }
+    }
+
+    private final List<Condition> conditions = new ArrayList<>();
+    private final List<Sort> sorts = new ArrayList<>();
+    private final List<String> columns = new ArrayList<>();
+    private Integer limit;
+    private Integer offset;
+
+    public static Query all() {
+        return new Query();
+    }
+
+    public static Query where(String column, Operator operator, Object value) {
+        return new Query().and(column, operator, value);
+    }
+
+    public static Query where(String column, Operator operator) {
+        return new Query().and(column, operator);
+    }
+
+    public Query and(String column, Operator operator, Object value) {
+        if (operator == Operator.IN && !(value instanceof Collection)) {
+            throw new IllegalArgumentException("Operador IN exige uma coleção de valores");
+        }
+        conditions.add(new Condition(column, operator, value));
+        return this;
+    }
+
+    public Query and(String column, Operator operator) {
+        if (operator.takesValue()) {
+            throw new IllegalArgumentException("Operador " + operator + " exige um valor");
+        }
+        conditions.add(new Condition(column, operator, null));
+        return this;
+    }
+
+    public Query orderBy(String column) {
+        return orderBy(column, true);
+    }
+
+    public Query orderBy(String column, boolean ascending) {
+        sorts.add(new Sort(column, ascending));
+        return this;
+    }
+
+    public Query limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limite deve ser positivo");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    public Query offset(int offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Deslocamento deve ser positivo");
+        }
+        this.offset = offset;
+        return this;
+    }
+
+    // Projection, used by RepositoryInterface.select; find always returns whole entities
+    public Query select(String... columns) {
+        Collections.addAll(this.columns, columns);
+        return this;
+    }
+
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(conditions);
+    }
+
+    public List<Sort> getSorts() {
+        return Collections.unmodifiableList(sorts);
+    }
+
+    public List<String> getColumns() {
+        return Collections.unmodifiableList(columns);
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public Integer getOffset() {
+        return offset;
+    }
+}
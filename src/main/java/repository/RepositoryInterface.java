@@ -1,6 +1,7 @@
 package repository;
 
 import java.util.List;
+import java.util.Map;
 
 public interface RepositoryInterface<T> {
     T create(T entity);
@@ -8,4 +9,10 @@ public interface RepositoryInterface<T> {
     List<T> list();
     T get(int id);
     void delete(int id);
+
+    // Filtering, sorting and paging pushed down to the storage backend
+    List<T> find(Query query);
+
+    // Same as find, but returns only the projected columns of each row
+    List<Map<String, Object>> select(Query query);
 }
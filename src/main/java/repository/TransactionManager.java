@@ -0,0 +1,21 @@
+package repository;
+
+import java.util.function.Supplier;
+
+// Unit of work: every repository call made by the work on the current thread commits or rolls back together
+public interface TransactionManager {
+    <T> T inTransaction(Supplier<T> work);
+
+    default void inTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    // Whether the current thread is inside a transaction
+    boolean isActive();
+
+    // Runs the action once the current thread's transaction commits or rolls back, or right away outside one
+    void afterCompletion(Runnable action);
+}
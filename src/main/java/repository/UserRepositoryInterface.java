@@ -0,0 +1,8 @@
+package repository;
+
+import entity.User;
+
+public interface UserRepositoryInterface extends RepositoryInterface<User> {
+    // Exact match on the unique email; null if no user has it
+    User findByEmail(String email);
+}
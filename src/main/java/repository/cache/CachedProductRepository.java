@@ -0,0 +1,249 @@
+package repository.cache;
+
+import entity.Product;
+import repository.ProductRepositoryInterface;
+import repository.Query;
+import repository.TransactionManager;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Read-through cache for get(id) in front of any product repository.
+// Bounded LRU with a time-to-live per entry. Every write that can change a product (update, soft delete,
+// stock changes) invalidates its entry, and again once the surrounding transaction finishes, so a reader
+// can never re-cache a value that a transaction was still changing. Reads inside a transaction bypass
+// the cache, so they see the transaction's own writes and never publish uncommitted data.
+public class CachedProductRepository implements ProductRepositoryInterface {
+    private final ProductRepositoryInterface delegate;
+    private final TransactionManager transactionManager;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Integer, Entry> entries;
+
+    // Bumped by every invalidation; a load only caches its result if no invalidation happened meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    // Stats
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public CachedProductRepository(ProductRepositoryInterface delegate, TransactionManager transactionManager,
+                                   int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Tamanho do cache deve ser maior que zero");
+        }
+        this.delegate = delegate;
+        this.transactionManager = transactionManager;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() <= CachedProductRepository.this.maxSize) {
+                    return false;
+                }
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public Product get(int id) {
+        if (transactionManager.isActive()) {
+            return delegate.get(id);
+        }
+
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return copy(entry.product);
+                }
+                entries.remove(id);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+
+        long loadGeneration = generation.get();
+        long start = System.nanoTime();
+        Product product = delegate.get(id);
+        long loadedAt = System.nanoTime();
+        loads.increment();
+        loadNanos.add(loadedAt - start);
+
+        // Deleted and missing products are not cached: get() returns null for them
+        if (product != null) {
+            synchronized (entries) {
+                if (generation.get() == loadGeneration) {
+                    entries.put(id, new Entry(copy(product), loadedAt));
+                }
+            }
+        }
+        return product;
+    }
+
+    @Override
+    public Product create(Product product) {
+        return delegate.create(product);
+    }
+
+    @Override
+    public Product update(Product product) {
+        try {
+            return delegate.update(product);
+        } finally {
+            invalidate(List.of(product.getId()));
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            invalidate(List.of(id));
+        }
+    }
+
+    @Override
+    public void addStock(Map<Integer, Integer> deltaByProductId) {
+        try {
+            delegate.addStock(deltaByProductId);
+        } finally {
+            invalidate(deltaByProductId.keySet());
+        }
+    }
+
+    @Override
+    public boolean decrementStock(int productId, int amount) {
+        try {
+            return delegate.decrementStock(productId, amount);
+        } finally {
+            invalidate(List.of(productId));
+        }
+    }
+
+    @Override
+    public Map<Integer, Boolean> decrementStock(Map<Integer, Integer> amountByProductId) {
+        try {
+            return delegate.decrementStock(amountByProductId);
+        } finally {
+            invalidate(amountByProductId.keySet());
+        }
+    }
+
+    @Override
+    public List<Product> list() {
+        return delegate.list();
+    }
+
+    @Override
+    public List<Product> find(Query query) {
+        return delegate.find(query);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return delegate.select(query);
+    }
+
+    private void invalidate(Collection<Integer> ids) {
+        evict(ids);
+        if (transactionManager.isActive()) {
+            transactionManager.afterCompletion(() -> evict(ids));
+        }
+    }
+
+    private void evict(Collection<Integer> ids) {
+        synchronized (entries) {
+            generation.incrementAndGet();
+            for (Integer id : ids) {
+                if (entries.remove(id) != null) {
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public double getAverageLoadMillis() {
+        long loadCount = loads.sum();
+        return loadCount == 0 ? 0.0 : loadNanos.sum() / 1_000_000.0 / loadCount;
+    }
+
+    // Products are mutable, so the cache never hands out the instance it holds
+    private static Product copy(Product product) {
+        return new Product(
+            product.getId(),
+            product.getName(),
+            product.getValue(),
+            product.getDescription(),
+            product.getAvailableAmount(),
+            product.getImage(),
+            product.getDeletedAt() != null ? new Date(product.getDeletedAt().getTime()) : null
+        );
+    }
+
+    private static class Entry {
+        private final Product product;
+        private final long loadedAt;
+
+        Entry(Product product, long loadedAt) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
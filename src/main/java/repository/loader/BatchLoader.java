@@ -0,0 +1,188 @@
+package repository.loader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+// Coalesces concurrent lookups by id into batched fetches (the DataLoader pattern).
+// Callers asking for an id that is already being loaded share that load (single-flight). Ids requested
+// while a batch is running queue up and go out together in the next batch, so there is no timer and no
+// added latency when the system is idle: batches only grow when requests actually overlap.
+// A waiting thread that finds no batch running runs the next one itself, on behalf of everyone in it, and
+// then goes back to waiting for its own row; no thread runs more than one batch at a time for others.
+public class BatchLoader<T> {
+    private final Function<Collection<Integer>, List<T>> fetch;
+    private final ToIntFunction<T> idOf;
+    private final UnaryOperator<T> copy;
+    private final int maxBatchSize;
+
+    private final ConcurrentHashMap<Integer, CompletableFuture<T>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Request<T>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    // Completed (and replaced) each time a batch finishes, to wake the threads waiting to run the next one
+    private final AtomicReference<CompletableFuture<Void>> batchFinished = new AtomicReference<>(new CompletableFuture<>());
+
+    // Stats
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedKeys = new LongAdder();
+    private final AtomicInteger largestBatch = new AtomicInteger();
+
+    // fetch receives a batch of ids and returns the rows that exist; ids without a row resolve to null.
+    // Entities are mutable, so callers that joined someone else's load get a copy of the row.
+    public BatchLoader(Function<Collection<Integer>, List<T>> fetch, ToIntFunction<T> idOf, UnaryOperator<T> copy, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser maior que zero");
+        }
+        this.fetch = fetch;
+        this.idOf = idOf;
+        this.copy = copy;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public T load(int id) {
+        requests.increment();
+
+        boolean[] created = new boolean[1];
+        CompletableFuture<T> future = inFlight.computeIfAbsent(id, key -> {
+            created[0] = true;
+            return new CompletableFuture<>();
+        });
+        if (created[0]) {
+            pending.add(new Request<>(id, future));
+        } else {
+            coalesced.increment();
+        }
+
+        // Read the signal before trying to dispatch, so a batch finishing right after a failed attempt still wakes us
+        while (!future.isDone()) {
+            CompletableFuture<Void> finished = batchFinished.get();
+            if (!dispatchOne()) {
+                CompletableFuture.anyOf(future, finished).handle((result, error) -> null).join();
+            }
+        }
+
+        try {
+            T row = future.join();
+            return created[0] || row == null ? row : copy.apply(row);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Runs the next batch if no other thread is running one; false if another thread is
+    private boolean dispatchOne() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            List<Request<T>> batch = nextBatch();
+            if (!batch.isEmpty()) {
+                runBatch(batch);
+            }
+        } finally {
+            dispatching.set(false);
+            batchFinished.getAndSet(new CompletableFuture<>()).complete(null);
+        }
+        return true;
+    }
+
+    private List<Request<T>> nextBatch() {
+        List<Request<T>> batch = new ArrayList<>();
+        Request<T> request;
+        while (batch.size() < maxBatchSize && (request = pending.poll()) != null) {
+            batch.add(request);
+        }
+        return batch;
+    }
+
+    private void runBatch(List<Request<T>> batch) {
+        batches.increment();
+        batchedKeys.add(batch.size());
+        largestBatch.accumulateAndGet(batch.size(), Math::max);
+
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Request<T> request : batch) {
+            ids.add(request.id);
+        }
+
+        // Errors too: every future must resolve, or its waiters and later lookups of its id would hang
+        Map<Integer, T> rows = new HashMap<>();
+        Throwable failure = null;
+        try {
+            for (T row : fetch.apply(ids)) {
+                rows.put(idOf.applyAsInt(row), row);
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+
+        // Removing before completing means a later request for the same id starts a fresh load
+        for (Request<T> request : batch) {
+            inFlight.remove(request.id, request.future);
+            if (failure != null) {
+                request.future.completeExceptionally(failure);
+            } else {
+                request.future.complete(rows.get(request.id));
+            }
+        }
+    }
+
+    // Called after a write: loads already running may have read the old row, so later lookups must not join them
+    public void forgetInFlight() {
+        inFlight.clear();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public double getAverageBatchSize() {
+        long batchCount = batches.sum();
+        return batchCount == 0 ? 0.0 : (double) batchedKeys.sum() / batchCount;
+    }
+
+    public int getLargestBatchSize() {
+        return largestBatch.get();
+    }
+
+    private static class Request<T> {
+        private final int id;
+        private final CompletableFuture<T> future;
+
+        Request(int id, CompletableFuture<T> future) {
+            this.id = id;
+            this.future = future;
+        }
+    }
+}
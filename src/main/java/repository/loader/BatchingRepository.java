@@ -0,0 +1,70 @@
+package repository.loader;
+
+import repository.RepositoryInterface;
+import repository.TransactionManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+// Wraps a repository so its get(id) goes through a BatchLoader; every other method goes straight to the repository,
+// and writes stop later lookups from joining loads that started before them.
+// Works for any repository interface (e.g. AddressRepositoryInterface), so business classes don't change.
+// Inside a transaction get(id) is not batched: it has to run on the transaction's connection and see its writes.
+public class BatchingRepository implements InvocationHandler {
+    private final Object delegate;
+    private final BatchLoader<?> loader;
+    private final TransactionManager transactionManager;
+
+    private BatchingRepository(Object delegate, BatchLoader<?> loader, TransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.loader = loader;
+        this.transactionManager = transactionManager;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T, R extends RepositoryInterface<T>> R wrap(Class<R> type, R delegate, BatchLoader<T> loader,
+                                                               TransactionManager transactionManager) {
+        return (R) Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] { type },
+            new BatchingRepository(delegate, loader, transactionManager)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("get") && args != null && args.length == 1 && args[0] instanceof Integer
+                && !transactionManager.isActive()) {
+            return loader.load((Integer) args[0]);
+        }
+
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Batching[" + delegate + "]";
+            default:
+                break;
+        }
+
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            if (isWrite(method)) {
+                loader.forgetInFlight();
+            }
+        }
+    }
+
+    // Anything that isn't a lookup (create, update, delete, stock changes...) may change rows being loaded
+    private static boolean isWrite(Method method) {
+        String name = method.getName();
+        return !(name.startsWith("get") || name.startsWith("find") || name.startsWith("list") || name.startsWith("select"));
+    }
+}
@@ -0,0 +1,47 @@
+package repository.loader;
+
+import entity.Address;
+import entity.Product;
+import entity.User;
+import repository.Query;
+import repository.RepositoryInterface;
+
+import java.util.ArrayList;
+import java.util.Date;
+
+// Batch loaders for the entities looked up by id on every request, each fetching a batch with one IN query
+public class EntityLoaders {
+
+    public static BatchLoader<User> users(RepositoryInterface<User> repository, int maxBatchSize) {
+        return new BatchLoader<>(
+            ids -> repository.find(Query.where("id", Query.Operator.IN, new ArrayList<>(ids))),
+            User::getId,
+            user -> new User(user.getId(), user.getName(), user.getEmail(), user.getPassword(), user.getDocument()),
+            maxBatchSize
+        );
+    }
+
+    public static BatchLoader<Address> addresses(RepositoryInterface<Address> repository, int maxBatchSize) {
+        return new BatchLoader<>(
+            ids -> repository.find(Query.where("id", Query.Operator.IN, new ArrayList<>(ids))),
+            Address::getId,
+            address -> new Address(address.getId(), address.getUserId(), address.getStreet(), address.getNumber(),
+                                   address.getNeighborhood(), address.getZipCode(), address.getComplement(),
+                                   address.getCity(), address.getState()),
+            maxBatchSize
+        );
+    }
+
+    // Same rule as ProductRepositoryInterface.get: soft-deleted products are not found
+    public static BatchLoader<Product> products(RepositoryInterface<Product> repository, int maxBatchSize) {
+        return new BatchLoader<>(
+            ids -> repository.find(Query.where("id", Query.Operator.IN, new ArrayList<>(ids))
+                                        .and("deleted_at", Query.Operator.IS_NULL)),
+            Product::getId,
+            product -> new Product(product.getId(), product.getName(), product.getValue(), product.getDescription(),
+                                   product.getAvailableAmount(), product.getImage(),
+                                   product.getDeletedAt() != null ? new Date(product.getDeletedAt().getTime()) : null),
+            maxBatchSize
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package repository.memory;
+
+import entity.Address;
+import repository.AddressRepositoryInterface;
+import repository.Query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class AddressRepositoryMemory implements AddressRepositoryInterface {
+    private final MemoryTable<Address> table;
+
+    public AddressRepositoryMemory() {
+        Map<String, Function<Address, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", Address::getId);
+        columns.put("user_id", Address::getUserId);
+        columns.put("street", Address::getStreet);
+        columns.put("number", Address::getNumber);
+        columns.put("neighborhood", Address::getNeighborhood);
+        columns.put("zip_code", Address::getZipCode);
+        columns.put("complement", Address::getComplement);
+        columns.put("city", Address::getCity);
+        columns.put("state", Address::getState);
+
+        this.table = new MemoryTable<>(Address::getId, AddressRepositoryMemory::copy, columns)
+            .index("user_id", Address::getUserId);
+    }
+
+    @Override
+    public Address create(Address address) {
+        address.setId(table.nextId());
+        table.insert(address);
+        return address;
+    }
+
+    @Override
+    public Address update(Address address) {
+        table.update(address);
+        return address;
+    }
+
+    @Override
+    public List<Address> list() {
+        return table.list();
+    }
+
+    @Override
+    public Address get(int id) {
+        return table.get(id);
+    }
+
+    @Override
+    public void delete(int id) {
+        table.delete(id);
+    }
+
+    @Override
+    public List<Address> findByUserId(int userId) {
+        return table.findBy("user_id", userId);
+    }
+
+    @Override
+    public List<Address> find(Query query) {
+        return table.find(query);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return table.select(query);
+    }
+
+    // Same shape the SQLite repository maps: the user is a stub carrying only its id
+    private static Address copy(Address address) {
+        return new Address(
+            address.getId(),
+            address.getUserId(),
+            address.getStreet(),
+            address.getNumber(),
+            address.getNeighborhood(),
+            address.getZipCode(),
+            address.getComplement(),
+            address.getCity(),
+            address.getState()
+        );
+    }
+}
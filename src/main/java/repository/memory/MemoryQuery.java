@@ -0,0 +1,206 @@
+package repository.memory;
+
+import repository.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Evaluates a repository Query over in-memory rows.
+// Each table is described by its column accessors, keyed by the same column names the SQLite tables use,
+// and comparisons follow SQLite's rules closely enough that both backends return the same rows.
+public class MemoryQuery {
+
+    public static <T> List<T> find(Collection<T> rows, Map<String, Function<T, Object>> columns, Query query) {
+        checkColumns(columns, query);
+
+        List<T> matches = new ArrayList<>();
+        for (T row : rows) {
+            if (matches(row, columns, query)) {
+                matches.add(row);
+            }
+        }
+
+        if (!query.getSorts().isEmpty()) {
+            matches.sort(comparator(columns, query.getSorts()));
+        }
+
+        int from = query.getOffset() != null ? Math.min(query.getOffset(), matches.size()) : 0;
+        int to = query.getLimit() != null ? (int) Math.min((long) from + query.getLimit(), matches.size()) : matches.size();
+        return new ArrayList<>(matches.subList(from, to));
+    }
+
+    public static <T> List<Map<String, Object>> select(Collection<T> rows, Map<String, Function<T, Object>> columns, Query query) {
+        List<String> projection = query.getColumns().isEmpty() ? new ArrayList<>(columns.keySet()) : query.getColumns();
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (T row : find(rows, columns, query)) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String column : projection) {
+                values.put(column, toStorageValue(columns.get(column).apply(row)));
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    // The value of an EQ condition on the column, if the query has one (used to pick a secondary index)
+    public static Object equalityValue(Query query, String column) {
+        for (Query.Condition condition : query.getConditions()) {
+            if (condition.getOperator() == Query.Operator.EQ && condition.getColumn().equals(column)) {
+                return condition.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static <T> void checkColumns(Map<String, Function<T, Object>> columns, Query query) {
+        for (Query.Condition condition : query.getConditions()) {
+            checkColumn(columns, condition.getColumn());
+        }
+        for (Query.Sort sort : query.getSorts()) {
+            checkColumn(columns, sort.getColumn());
+        }
+        for (String column : query.getColumns()) {
+            checkColumn(columns, column);
+        }
+    }
+
+    private static void checkColumn(Map<String, ?> columns, String column) {
+        if (!columns.containsKey(column)) {
+            throw new IllegalArgumentException("Coluna inválida para consulta: " + column);
+        }
+    }
+
+    private static <T> boolean matches(T row, Map<String, Function<T, Object>> columns, Query query) {
+        for (Query.Condition condition : query.getConditions()) {
+            Object value = toStorageValue(columns.get(condition.getColumn()).apply(row));
+            if (!matches(value, condition)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(Object value, Query.Condition condition) {
+        switch (condition.getOperator()) {
+            case IS_NULL:
+                return value == null;
+            case IS_NOT_NULL:
+                return value != null;
+            case IN:
+                for (Object candidate : condition.getValues()) {
+                    if (value != null && candidate != null && compare(value, toStorageValue(candidate)) == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            default:
+                break;
+        }
+
+        // As in SQL, any comparison with NULL is not a match
+        Object operand = toStorageValue(condition.getValue());
+        if (value == null || operand == null) {
+            return false;
+        }
+
+        switch (condition.getOperator()) {
+            case EQ:
+                return compare(value, operand) == 0;
+            case NE:
+                return compare(value, operand) != 0;
+            case LT:
+                return compare(value, operand) < 0;
+            case LE:
+                return compare(value, operand) <= 0;
+            case GT:
+                return compare(value, operand) > 0;
+            case GE:
+                return compare(value, operand) >= 0;
+            case LIKE:
+                return likePattern(operand.toString()).matcher(value.toString()).matches();
+            default:
+                throw new IllegalArgumentException("Operador não suportado: " + condition.getOperator());
+        }
+    }
+
+    private static <T> Comparator<T> comparator(Map<String, Function<T, Object>> columns, List<Query.Sort> sorts) {
+        Comparator<T> comparator = null;
+        for (Query.Sort sort : sorts) {
+            Function<T, Object> accessor = columns.get(sort.getColumn());
+            // NULLs sort first in ascending order, as in SQLite
+            Comparator<T> next = Comparator.comparing(
+                row -> toStorageValue(accessor.apply(row)),
+                Comparator.nullsFirst(MemoryQuery::compare)
+            );
+            if (!sort.isAscending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    // Dates are stored as epoch millis and enums by name, the same way the SQLite repositories bind them
+    static Object toStorageValue(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return value;
+    }
+
+    // Numbers compare numerically and sort before text, as SQLite orders its storage classes
+    private static int compare(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                return Long.compare(((Number) a).longValue(), ((Number) b).longValue());
+            }
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Number) {
+            return -1;
+        }
+        if (b instanceof Number) {
+            return 1;
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+    }
+
+    // SQLite LIKE: % is any run of characters, _ is one character, ASCII letters match case-insensitively
+    private static Pattern likePattern(String like) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (char c : like.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    }
+}
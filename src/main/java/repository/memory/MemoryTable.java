@@ -0,0 +1,219 @@
+package repository.memory;
+
+import repository.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+// Storage for one in-memory table: rows keyed by id (kept in id order, like a rowid table),
+// an id generator, and secondary indexes from a foreign key to the ids of the rows holding it.
+// Rows are copied on the way in and out, so callers never share an instance with the table.
+// Writes made inside a MemoryTransactionManager transaction record how to undo themselves.
+class MemoryTable<T> {
+    private final ConcurrentSkipListMap<Integer, T> rows = new ConcurrentSkipListMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final ToIntFunction<T> idOf;
+    private final UnaryOperator<T> copy;
+    private final Map<String, Function<T, Object>> columns;
+    private final Map<String, Index<T>> indexes = new LinkedHashMap<>();
+
+    MemoryTable(ToIntFunction<T> idOf, UnaryOperator<T> copy, Map<String, Function<T, Object>> columns) {
+        this.idOf = idOf;
+        this.copy = copy;
+        this.columns = columns;
+    }
+
+    // Declares a secondary index on an integer column; call before any row is inserted
+    MemoryTable<T> index(String column, ToIntFunction<T> keyOf) {
+        indexes.put(column, new Index<>(keyOf));
+        return this;
+    }
+
+    int nextId() {
+        return ids.incrementAndGet();
+    }
+
+    void insert(T row) {
+        T stored = copy.apply(row);
+        int id = idOf.applyAsInt(stored);
+        rows.put(id, stored);
+        for (Index<T> index : indexes.values()) {
+            index.add(stored, id);
+        }
+        MemoryTransactionManager.onRollback(() -> removeRow(id));
+    }
+
+    // Replaces an existing row; returns false (and does nothing) if there is no row with that id
+    boolean update(T row) {
+        int id = idOf.applyAsInt(row);
+        T previous = replaceRow(id, copy.apply(row));
+        if (previous == null) {
+            return false;
+        }
+        MemoryTransactionManager.onRollback(() -> replaceRow(id, previous));
+        return true;
+    }
+
+    // Atomic read-modify-write of one row; the change must not touch indexed columns.
+    // Records no undo: callers that need one register a compensating action themselves
+    // (e.g. adding stock back rather than restoring a snapshot).
+    // Returns the new row, or null if there is no row or change returned null (row left as is).
+    T modify(int id, UnaryOperator<T> change) {
+        Object[] result = new Object[1];
+        rows.computeIfPresent(id, (key, current) -> {
+            T changed = change.apply(copy.apply(current));
+            if (changed == null) {
+                return current;
+            }
+            result[0] = changed;
+            return copy.apply(changed);
+        });
+        @SuppressWarnings("unchecked")
+        T changed = (T) result[0];
+        return changed;
+    }
+
+    boolean delete(int id) {
+        T previous = removeRow(id);
+        if (previous == null) {
+            return false;
+        }
+        MemoryTransactionManager.onRollback(() -> {
+            rows.put(id, previous);
+            for (Index<T> index : indexes.values()) {
+                index.add(previous, id);
+            }
+        });
+        return true;
+    }
+
+    T get(int id) {
+        T row = rows.get(id);
+        return row != null ? copy.apply(row) : null;
+    }
+
+    List<T> list() {
+        return copies(rows.values());
+    }
+
+    List<T> findBy(String column, int key) {
+        return copies(indexedRows(column, key));
+    }
+
+    List<T> find(Query query) {
+        return copies(MemoryQuery.find(candidates(query), columns, query));
+    }
+
+    List<Map<String, Object>> select(Query query) {
+        return MemoryQuery.select(candidates(query), columns, query);
+    }
+
+    // Narrows the scan with the primary key or a secondary index when the query has an equality on one
+    private Collection<T> candidates(Query query) {
+        Object id = MemoryQuery.equalityValue(query, "id");
+        if (id instanceof Number) {
+            T row = rows.get(((Number) id).intValue());
+            return row != null ? List.of(row) : List.of();
+        }
+        for (String column : indexes.keySet()) {
+            Object key = MemoryQuery.equalityValue(query, column);
+            if (key instanceof Number) {
+                return indexedRows(column, ((Number) key).intValue());
+            }
+        }
+        return rows.values();
+    }
+
+    private List<T> indexedRows(String column, int key) {
+        List<T> result = new ArrayList<>();
+        for (int id : indexes.get(column).ids(key)) {
+            T row = rows.get(id);
+            if (row != null) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private T replaceRow(int id, T replacement) {
+        Object[] previous = new Object[1];
+        rows.computeIfPresent(id, (key, current) -> {
+            previous[0] = current;
+            return replacement;
+        });
+
+        @SuppressWarnings("unchecked")
+        T old = (T) previous[0];
+        if (old != null) {
+            for (Index<T> index : indexes.values()) {
+                index.move(old, replacement, id);
+            }
+        }
+        return old;
+    }
+
+    private T removeRow(int id) {
+        T previous = rows.remove(id);
+        if (previous != null) {
+            for (Index<T> index : indexes.values()) {
+                index.remove(previous, id);
+            }
+        }
+        return previous;
+    }
+
+    private List<T> copies(Collection<T> source) {
+        List<T> result = new ArrayList<>(source.size());
+        for (T row : source) {
+            result.add(copy.apply(row));
+        }
+        return result;
+    }
+
+    private static class Index<T> {
+        private final ToIntFunction<T> keyOf;
+        private final ConcurrentHashMap<Integer, Set<Integer>> idsByKey = new ConcurrentHashMap<>();
+
+        Index(ToIntFunction<T> keyOf) {
+            this.keyOf = keyOf;
+        }
+
+        void add(T row, int id) {
+            // Add inside compute so a concurrent remove cannot drop the set in between
+            idsByKey.compute(keyOf.applyAsInt(row), (key, ids) -> {
+                Set<Integer> set = ids != null ? ids : new ConcurrentSkipListSet<>();
+                set.add(id);
+                return set;
+            });
+        }
+
+        void remove(T row, int id) {
+            idsByKey.computeIfPresent(keyOf.applyAsInt(row), (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+
+        void move(T from, T to, int id) {
+            if (keyOf.applyAsInt(from) != keyOf.applyAsInt(to)) {
+                remove(from, id);
+                add(to, id);
+            }
+        }
+
+        Set<Integer> ids(int key) {
+            return idsByKey.getOrDefault(key, Set.of());
+        }
+    }
+}
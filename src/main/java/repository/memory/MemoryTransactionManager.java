@@ -0,0 +1,84 @@
+package repository.memory;
+
+import repository.TransactionManager;
+import log.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Transactions for the in-memory repositories.
+// Transactions run one at a time (like SQLite's single writer), and every write made inside one records
+// a compensating action; on failure those actions run in reverse order to undo the work.
+public class MemoryTransactionManager implements TransactionManager {
+    private static final ReentrantLock WRITE_LOCK = new ReentrantLock();
+
+    // Undo log of the transaction open on the current thread
+    private static final ThreadLocal<Deque<Runnable>> UNDO_LOG = new ThreadLocal<>();
+
+    // Actions waiting for the current thread's transaction to finish
+    private static final ThreadLocal<List<Runnable>> AFTER_COMPLETION = new ThreadLocal<>();
+
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+        // Nested calls join the transaction already open on this thread
+        if (UNDO_LOG.get() != null) {
+            return work.get();
+        }
+
+        WRITE_LOCK.lock();
+        Deque<Runnable> undoLog = new ArrayDeque<>();
+        List<Runnable> afterCompletion = new ArrayList<>();
+        UNDO_LOG.set(undoLog);
+        AFTER_COMPLETION.set(afterCompletion);
+        try {
+            return work.get();
+        } catch (RuntimeException | Error e) {
+            rollback(undoLog);
+            throw e;
+        } finally {
+            UNDO_LOG.remove();
+            AFTER_COMPLETION.remove();
+            WRITE_LOCK.unlock();
+            for (Runnable action : afterCompletion) {
+                action.run();
+            }
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return UNDO_LOG.get() != null;
+    }
+
+    @Override
+    public void afterCompletion(Runnable action) {
+        List<Runnable> pending = AFTER_COMPLETION.get();
+        if (pending != null) {
+            pending.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    // Called by the repositories after each write; outside a transaction there is nothing to undo
+    static void onRollback(Runnable undo) {
+        Deque<Runnable> undoLog = UNDO_LOG.get();
+        if (undoLog != null) {
+            undoLog.push(undo);
+        }
+    }
+
+    private void rollback(Deque<Runnable> undoLog) {
+        while (!undoLog.isEmpty()) {
+            try {
+                undoLog.pop().run();
+            } catch (RuntimeException e) {
+                Log.warn("transaction.rollback.failed", "error", e.getMessage());
+            }
+        }
+    }
+}
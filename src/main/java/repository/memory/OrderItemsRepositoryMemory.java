@@ -0,0 +1,91 @@
+package repository.memory;
+
+import entity.Order;
+import entity.OrderItems;
+import entity.Product;
+import repository.OrderItemsRepositoryInterface;
+import repository.Query;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class OrderItemsRepositoryMemory implements OrderItemsRepositoryInterface {
+    private final MemoryTable<OrderItems> table;
+
+    public OrderItemsRepositoryMemory() {
+        Map<String, Function<OrderItems, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", OrderItems::getId);
+        columns.put("order_id", item -> item.getOrder().getId());
+        columns.put("product_id", item -> item.getProduct().getId());
+        columns.put("amount", OrderItems::getAmount);
+        columns.put("value", OrderItems::getValue);
+
+        this.table = new MemoryTable<>(OrderItems::getId, OrderItemsRepositoryMemory::copy, columns)
+            .index("order_id", item -> item.getOrder().getId());
+    }
+
+    @Override
+    public OrderItems create(OrderItems orderItem) {
+        orderItem.setId(table.nextId());
+        table.insert(orderItem);
+        return orderItem;
+    }
+
+    @Override
+    public List<OrderItems> createAll(List<OrderItems> orderItems) {
+        for (OrderItems orderItem : orderItems) {
+            create(orderItem);
+        }
+        return orderItems;
+    }
+
+    @Override
+    public OrderItems update(OrderItems orderItem) {
+        table.update(orderItem);
+        return orderItem;
+    }
+
+    @Override
+    public List<OrderItems> list() {
+        return table.list();
+    }
+
+    @Override
+    public OrderItems get(int id) {
+        return table.get(id);
+    }
+
+    @Override
+    public void delete(int id) {
+        table.delete(id);
+    }
+
+    @Override
+    public List<OrderItems> findByOrderId(int orderId) {
+        return table.findBy("order_id", orderId);
+    }
+
+    @Override
+    public List<OrderItems> find(Query query) {
+        return table.find(query);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return table.select(query);
+    }
+
+    // Same shape the SQLite repository maps: order and product are stubs carrying only their ids
+    private static OrderItems copy(OrderItems orderItem) {
+        Order order = new Order();
+        order.setId(orderItem.getOrder().getId());
+
+        Product product = new Product();
+        product.setId(orderItem.getProduct().getId());
+        product.setName("Product " + product.getId());
+
+        return new OrderItems(orderItem.getId(), order, product, orderItem.getAmount(), orderItem.getValue());
+    }
+}
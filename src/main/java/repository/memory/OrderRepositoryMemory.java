@@ -0,0 +1,192 @@
+package repository.memory;
+
+import dto.OrderDetailsDTO;
+import dto.OrderSummaryDTO;
+import entity.Address;
+import entity.Order;
+import entity.OrderItems;
+import entity.Product;
+import entity.User;
+import repository.AddressRepositoryInterface;
+import repository.OrderItemsRepositoryInterface;
+import repository.OrderRepositoryInterface;
+import repository.Query;
+import repository.RepositoryInterface;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class OrderRepositoryMemory implements OrderRepositoryInterface {
+    private final MemoryTable<Order> table;
+
+    // The other tables, for the joined reads (details) and the totals check
+    private final RepositoryInterface<User> userRepository;
+    private final AddressRepositoryInterface addressRepository;
+    private final OrderItemsRepositoryInterface orderItemsRepository;
+    private final ProductRepositoryMemory productRepository;
+
+    public OrderRepositoryMemory(RepositoryInterface<User> userRepository, AddressRepositoryInterface addressRepository,
+                                 OrderItemsRepositoryInterface orderItemsRepository, ProductRepositoryMemory productRepository) {
+        this.userRepository = userRepository;
+        this.addressRepository = addressRepository;
+        this.orderItemsRepository = orderItemsRepository;
+        this.productRepository = productRepository;
+
+        Map<String, Function<Order, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", Order::getId);
+        columns.put("user_id", order -> order.getUser().getId());
+        columns.put("address_id", order -> order.getAddress().getId());
+        columns.put("order_status", Order::getOrderStatus);
+        columns.put("created_at", Order::getCreatedAt);
+        columns.put("updated_at", Order::getUpdatedAt);
+        columns.put("item_count", Order::getItemCount);
+        columns.put("total_value", Order::getTotalValue);
+
+        this.table = new MemoryTable<>(Order::getId, OrderRepositoryMemory::copy, columns)
+            .index("user_id", order -> order.getUser().getId());
+    }
+
+    @Override
+    public Order create(Order order) {
+        order.setId(table.nextId());
+        table.insert(order);
+        return order;
+    }
+
+    @Override
+    public Order update(Order order) {
+        table.update(order);
+        return order;
+    }
+
+    @Override
+    public List<Order> list() {
+        return table.list();
+    }
+
+    @Override
+    public Order get(int id) {
+        return table.get(id);
+    }
+
+    @Override
+    public void delete(int id) {
+        table.delete(id);
+    }
+
+    @Override
+    public List<Order> findByUserId(int userId) {
+        return table.findBy("user_id", userId);
+    }
+
+    @Override
+    public OrderDetailsDTO findDetailsById(int orderId) {
+        Order order = table.get(orderId);
+        if (order == null) {
+            return null;
+        }
+
+        // Inner joins in the SQLite query: without its user or address the order is not found
+        User user = userRepository.get(order.getUser().getId());
+        Address address = addressRepository.get(order.getAddress().getId());
+        if (user == null || address == null) {
+            return null;
+        }
+        address.setUser(user);
+        order.setUser(user);
+        order.setAddress(address);
+
+        List<OrderItems> items = new ArrayList<>();
+        for (OrderItems item : orderItemsRepository.findByOrderId(orderId)) {
+            Product product = productRepository.findById(item.getProduct().getId(), true);
+            if (product == null) {
+                continue; // Item whose product row is gone
+            }
+            item.setOrder(order);
+            item.setProduct(product);
+            items.add(item);
+        }
+
+        return new OrderDetailsDTO(order, items, order.getTotalValue());
+    }
+
+    @Override
+    public List<OrderSummaryDTO> findSummaries(Query query) {
+        List<OrderSummaryDTO> summaries = new ArrayList<>();
+        for (Order order : find(query)) {
+            summaries.add(new OrderSummaryDTO(order, order.getItemCount(), order.getTotalValue()));
+        }
+        return summaries;
+    }
+
+    @Override
+    public int countInconsistentTotals() {
+        int count = 0;
+        for (Order order : table.list()) {
+            if (recomputeTotals(order)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int rebuildTotals() {
+        int updated = 0;
+        for (Order order : table.list()) {
+            if (recomputeTotals(order)) {
+                table.update(order);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    // Sets the item count and total from the order's items; true if they differed from the stored values
+    private boolean recomputeTotals(Order order) {
+        List<OrderItems> items = orderItemsRepository.findByOrderId(order.getId());
+        double totalValue = 0.0;
+        for (OrderItems item : items) {
+            totalValue += item.getTotalValue();
+        }
+
+        boolean changed = order.getItemCount() != items.size() || Math.abs(order.getTotalValue() - totalValue) > 0.000001;
+        order.setItemCount(items.size());
+        order.setTotalValue(totalValue);
+        return changed;
+    }
+
+    @Override
+    public List<Order> find(Query query) {
+        return table.find(query);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return table.select(query);
+    }
+
+    // Same shape the SQLite repository maps: user and address are stubs carrying only their ids
+    private static Order copy(Order order) {
+        User user = new User();
+        user.setId(order.getUser().getId());
+
+        Address address = new Address();
+        address.setId(order.getAddress().getId());
+
+        return new Order(
+            order.getId(),
+            user,
+            address,
+            order.getOrderStatus(),
+            new Date(order.getCreatedAt().getTime()),
+            new Date(order.getUpdatedAt().getTime()),
+            order.getItemCount(),
+            order.getTotalValue()
+        );
+    }
+}
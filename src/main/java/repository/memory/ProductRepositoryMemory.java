@@ -0,0 +1,146 @@
+package repository.memory;
+
+import entity.Product;
+import repository.ProductRepositoryInterface;
+import repository.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public class ProductRepositoryMemory implements ProductRepositoryInterface {
+    private final MemoryTable<Product> table;
+
+    public ProductRepositoryMemory() {
+        Map<String, Function<Product, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", Product::getId);
+        columns.put("name", Product::getName);
+        columns.put("value", Product::getValue);
+        columns.put("description", Product::getDescription);
+        columns.put("available_amount", Product::getAvailableAmount);
+        columns.put("image", Product::getImage);
+        columns.put("deleted_at", Product::getDeletedAt);
+
+        this.table = new MemoryTable<>(Product::getId, ProductRepositoryMemory::copy, columns);
+    }
+
+    @Override
+    public Product create(Product product) {
+        product.setId(table.nextId());
+        table.insert(product);
+        return product;
+    }
+
+    @Override
+    public Product update(Product product) {
+        table.update(product);
+        return product;
+    }
+
+    @Override
+    public void addStock(Map<Integer, Integer> deltaByProductId) {
+        for (Map.Entry<Integer, Integer> entry : deltaByProductId.entrySet()) {
+            int productId = entry.getKey();
+            int delta = entry.getValue();
+            if (changeStock(productId, delta, false)) {
+                MemoryTransactionManager.onRollback(() -> changeStock(productId, -delta, false));
+            }
+        }
+    }
+
+    @Override
+    public boolean decrementStock(int productId, int amount) {
+        return decrementStock(Map.of(productId, amount)).get(productId);
+    }
+
+    @Override
+    public Map<Integer, Boolean> decrementStock(Map<Integer, Integer> amountByProductId) {
+        Map<Integer, Boolean> results = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Integer> entry : amountByProductId.entrySet()) {
+            int productId = entry.getKey();
+            int amount = entry.getValue();
+            boolean decremented = changeStock(productId, -amount, true);
+            if (decremented) {
+                // Compensate rather than restore a snapshot, so concurrent stock changes are kept
+                MemoryTransactionManager.onRollback(() -> changeStock(productId, amount, false));
+            }
+            results.put(productId, decremented);
+        }
+        return results;
+    }
+
+    // Check and change happen atomically on the row, like the guarded UPDATE in the SQLite repository
+    private boolean changeStock(int productId, int delta, boolean guarded) {
+        return table.modify(productId, product -> {
+            if (guarded && (product.isDeleted() || product.getAvailableAmount() + delta < 0)) {
+                return null;
+            }
+            product.setAvailableAmount(product.getAvailableAmount() + delta);
+            return product;
+        }) != null;
+    }
+
+    @Override
+    public List<Product> list() {
+        return findAll(false); // By default, don't include deleted products
+    }
+
+    @Override
+    public Product get(int id) {
+        return findById(id, false); // By default, don't include deleted products
+    }
+
+    @Override
+    public void delete(int id) {
+        // Soft delete - set deleted_at timestamp
+        Product current = table.get(id);
+        if (current != null) {
+            Product deleted = copy(current);
+            deleted.setDeletedAt(new Date());
+            table.update(deleted);
+        }
+    }
+
+    public List<Product> findAll(boolean includeDeleted) {
+        List<Product> products = new ArrayList<>();
+        for (Product product : table.list()) {
+            if (includeDeleted || !product.isDeleted()) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    public Product findById(int id, boolean includeDeleted) {
+        Product product = table.get(id);
+        if (product == null || (!includeDeleted && product.isDeleted())) {
+            return null;
+        }
+        return product;
+    }
+
+    @Override
+    public List<Product> find(Query query) {
+        return table.find(query);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return table.select(query);
+    }
+
+    private static Product copy(Product product) {
+        return new Product(
+            product.getId(),
+            product.getName(),
+            product.getValue(),
+            product.getDescription(),
+            product.getAvailableAmount(),
+            product.getImage(),
+            product.getDeletedAt() != null ? new Date(product.getDeletedAt().getTime()) : null
+        );
+    }
+}
@@ -0,0 +1,104 @@
+package repository.memory;
+
+import entity.User;
+import repository.Query;
+import repository.UserRepositoryInterface;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class UserRepositoryMemory implements UserRepositoryInterface {
+    private final MemoryTable<User> table;
+
+    // Enforces the UNIQUE email constraint of the users table
+    private final ConcurrentHashMap<String, Integer> idsByEmail = new ConcurrentHashMap<>();
+
+    public UserRepositoryMemory() {
+        Map<String, Function<User, Object>> columns = new LinkedHashMap<>();
+        columns.put("id", User::getId);
+        columns.put("name", User::getName);
+        columns.put("email", User::getEmail);
+        columns.put("password", User::getPassword);
+        columns.put("document", User::getDocument);
+
+        this.table = new MemoryTable<>(User::getId, UserRepositoryMemory::copy, columns);
+    }
+
+    @Override
+    public User create(User user) {
+        int id = table.nextId();
+        if (idsByEmail.putIfAbsent(user.getEmail(), id) != null) {
+            throw new RuntimeException("Erro ao criar usuário", new IllegalStateException("E-mail já cadastrado: " + user.getEmail()));
+        }
+        MemoryTransactionManager.onRollback(() -> idsByEmail.remove(user.getEmail(), id));
+
+        user.setId(id);
+        table.insert(user);
+        return user;
+    }
+
+    @Override
+    public User update(User user) {
+        User current = table.get(user.getId());
+        if (current == null) {
+            return user;
+        }
+
+        boolean emailChanged = !current.getEmail().equals(user.getEmail());
+        if (emailChanged) {
+            if (idsByEmail.putIfAbsent(user.getEmail(), user.getId()) != null) {
+                throw new RuntimeException("Erro ao atualizar usuário", new IllegalStateException("E-mail já cadastrado: " + user.getEmail()));
+            }
+            idsByEmail.remove(current.getEmail(), user.getId());
+            MemoryTransactionManager.onRollback(() -> {
+                idsByEmail.remove(user.getEmail(), user.getId());
+                idsByEmail.put(current.getEmail(), user.getId());
+            });
+        }
+
+        table.update(user);
+        return user;
+    }
+
+    @Override
+    public List<User> list() {
+        return table.list();
+    }
+
+    @Override
+    public User get(int id) {
+        return table.get(id);
+    }
+
+    @Override
+    public void delete(int id) {
+        User current = table.get(id);
+        if (current != null && table.delete(id)) {
+            idsByEmail.remove(current.getEmail(), id);
+            MemoryTransactionManager.onRollback(() -> idsByEmail.put(current.getEmail(), id));
+        }
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        Integer id = idsByEmail.get(email);
+        return id != null ? table.get(id) : null;
+    }
+
+    @Override
+    public List<User> find(Query query) {
+        return table.find(query);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return table.select(query);
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getEmail(), user.getPassword(), user.getDocument());
+    }
+}
@@ -0,0 +1,63 @@
+package repository.profiling;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Repository calls made while handling one request, collected on the thread handling it.
+// A batched lookup is recorded by whichever request's thread ran the batch, so under load a request may be
+// charged for a fetch it shared with others; counts still show how many calls each request caused to run.
+public class QueryProfile {
+    private static final ThreadLocal<QueryProfile> CURRENT = new ThreadLocal<>();
+
+    private int callCount;
+    private long nanos;
+    private final Map<String, Integer> callsByMethod = new LinkedHashMap<>();
+
+    // Starts a profile on the current thread, replacing any left over from an earlier request
+    public static QueryProfile begin() {
+        QueryProfile profile = new QueryProfile();
+        CURRENT.set(profile);
+        return profile;
+    }
+
+    // Null if no profile was started on this thread
+    public static QueryProfile end() {
+        QueryProfile profile = CURRENT.get();
+        CURRENT.remove();
+        return profile;
+    }
+
+    static void record(String call, long elapsedNanos) {
+        QueryProfile profile = CURRENT.get();
+        if (profile != null) {
+            profile.callCount++;
+            profile.nanos += elapsedNanos;
+            profile.callsByMethod.merge(call, 1, Integer::sum);
+        }
+    }
+
+    public int getCallCount() {
+        return callCount;
+    }
+
+    public double getMillis() {
+        return nanos / 1_000_000.0;
+    }
+
+    // Most frequent calls first, e.g. "OrderItemsRepository.findByOrderId x120, OrderRepository.get x1"
+    public String describeCalls() {
+        List<Map.Entry<String, Integer>> calls = new ArrayList<>(callsByMethod.entrySet());
+        calls.sort((a, b) -> b.getValue() - a.getValue());
+
+        StringBuilder description = new StringBuilder();
+        for (Map.Entry<String, Integer> call : calls) {
+            if (description.length() > 0) {
+                description.append(", ");
+            }
+            description.append(call.getKey()).append(" x").append(call.getValue());
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package repository.profiling;
+
+import metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+// Wraps a repository so every call is timed: into the request's QueryProfile, if one is running on the thread,
+// and into a latency histogram by repository and method.
+// Works for any repository interface, so business classes don't change.
+public class TimedRepository implements InvocationHandler {
+    private final Object delegate;
+    private final String name;
+    private final MetricsRegistry.LabeledHistogram latency;
+
+    private TimedRepository(Object delegate, String name, MetricsRegistry.LabeledHistogram latency) {
+        this.delegate = delegate;
+        this.name = name;
+        this.latency = latency;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <R> R wrap(Class<R> type, R delegate, String name, MetricsRegistry.LabeledHistogram latency) {
+        return (R) Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] { type },
+            new TimedRepository(delegate, name, latency)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Timed[" + delegate + "]";
+            default:
+                break;
+        }
+
+        long start = System.nanoTime();
+        try {
+            return method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            QueryProfile.record(name + "." + method.getName(), elapsed);
+            latency.record(elapsed / 1000, name, method.getName());
+        }
+    }
+}
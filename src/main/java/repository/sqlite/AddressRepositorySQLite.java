@@ -2,18 +2,24 @@ package repository.sqlite;
 
 import entity.Address;
 import entity.User;
-import repository.RepositoryInterface;
+import repository.AddressRepositoryInterface;
+import repository.Query;
 import repository.sqlite.DatabaseManager;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class AddressRepositorySQLite implements RepositoryInterface<Address> {
+public class AddressRepositorySQLite implements AddressRepositoryInterface {
+    private static final Set<String> COLUMNS = Set.of(
+        "id", "user_id", "street", "number", "neighborhood", "zip_code", "complement", "city", "state"
+    );
 
     @Override
     public Address create(Address address) {
-        String sql = "INSERT INTO addresses (user_id, street, number, neighborhood, zip_code, complement, city, state) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO addresses (user_id, street, number, neighborhood, zip_code, complement, city, state) VALUES (?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -27,12 +33,8 @@ public class AddressRepositorySQLite implements RepositoryInterface<Address> {
             pstmt.setString(7, address.getCity());
             pstmt.setString(8, address.getState());
 
-            pstmt.executeUpdate();
-
-            // Get the generated ID using SQLite's last_insert_rowid() function
-            String getIdSql = "SELECT last_insert_rowid()";
-            try (PreparedStatement idStmt = conn.prepareStatement(getIdSql);
-                 ResultSet rs = idStmt.executeQuery()) {
+            // RETURNING hands back the generated id in the same statement
+            try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     address.setId(rs.getInt(1));
                 }
@@ -125,6 +127,21 @@ public class AddressRepositorySQLite implements RepositoryInterface<Address> {
         }
     }
 
+    @Override
+    public List<Address> findByUserId(int userId) {
+        return find(Query.where("user_id", Query.Operator.EQ, userId));
+    }
+
+    @Override
+    public List<Address> find(Query query) {
+        return SqlQuery.find("addresses", COLUMNS, query, this::mapResultSetToAddress);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return SqlQuery.select("addresses", COLUMNS, query);
+    }
+
     private Address mapResultSetToAddress(ResultSet rs) throws SQLException {
         return new Address(
             rs.getInt("id"),
@@ -0,0 +1,332 @@
+package repository.sqlite;
+
+import log.Log;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConnectionPool {
+    private final String url;
+    private final Properties properties;
+    private final int maxSize;
+    private final long leaseTimeoutMillis;
+    private final int statementCacheSize;
+    private final SlowQueryLog slowQueryLog;
+
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> all = new CopyOnWriteArrayList<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final LongAdder leaseCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, Properties properties, int maxSize, long leaseTimeoutMillis) {
+        this(url, properties, maxSize, leaseTimeoutMillis, 0);
+    }
+
+    // statementCacheSize is the number of prepared statements kept per connection; 0 disables the cache
+    public ConnectionPool(String url, Properties properties, int maxSize, long leaseTimeoutMillis, int statementCacheSize) {
+        this(url, properties, maxSize, leaseTimeoutMillis, statementCacheSize, null);
+    }
+
+    // slowQueryLog, if not null, times every statement run through the pool's connections
+    public ConnectionPool(String url, Properties properties, int maxSize, long leaseTimeoutMillis, int statementCacheSize,
+                          SlowQueryLog slowQueryLog) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Tamanho do pool deve ser maior que zero");
+        }
+        this.url = url;
+        this.properties = properties;
+        this.maxSize = maxSize;
+        this.leaseTimeoutMillis = leaseTimeoutMillis;
+        this.statementCacheSize = Math.max(statementCacheSize, 0);
+        this.slowQueryLog = slowQueryLog;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    // Borrow a connection. Closing the returned connection gives it back to the pool.
+    public Connection lease() {
+        if (closed) {
+            throw new IllegalStateException("Pool de conexões encerrado");
+        }
+
+        long start = System.nanoTime();
+        try {
+            Connection physical = idle.poll();
+            if (physical == null) {
+                physical = tryCreate();
+            }
+            if (physical == null) {
+                physical = idle.poll(leaseTimeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            if (physical == null) {
+                timeoutCount.increment();
+                throw new RuntimeException("Tempo esgotado aguardando conexão com o banco de dados");
+            }
+
+            active.incrementAndGet();
+            leaseCount.increment();
+            return wrap(physical);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrompido aguardando conexão com o banco de dados", e);
+        } finally {
+            waitNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private Connection tryCreate() {
+        while (true) {
+            int current = created.get();
+            if (current >= maxSize) {
+                return null;
+            }
+            if (created.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        try {
+            Connection physical = DriverManager.getConnection(url, properties);
+            initializeConnection(physical);
+            if (statementCacheSize > 0) {
+                statementCaches.put(physical, new StatementCache(
+                    physical, statementCacheSize, statementHits, statementMisses, statementEvictions));
+            }
+            all.add(physical);
+            return physical;
+        } catch (SQLException e) {
+            created.decrementAndGet();
+            throw new RuntimeException("Erro ao conectar com o banco de dados", e);
+        }
+    }
+
+    // Runs once per physical connection, right after it is opened
+    private void initializeConnection(Connection physical) throws SQLException {
+        try (Statement stmt = physical.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA busy_timeout = 5000");
+        }
+    }
+
+    private void release(Connection physical) {
+        active.decrementAndGet();
+
+        try {
+            if (closed || physical.isClosed()) {
+                discard(physical);
+                return;
+            }
+            // Never hand out a connection with a transaction left open
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+            return;
+        }
+
+        if (!idle.offer(physical)) {
+            discard(physical);
+        }
+    }
+
+    private void discard(Connection physical) {
+        all.remove(physical);
+        created.decrementAndGet();
+        StatementCache cache = statementCaches.remove(physical);
+        if (cache != null) {
+            cache.close();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            Log.warn("pool.close.failed", "error", e.getMessage());
+        }
+    }
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new LeaseHandler(physical)
+        );
+    }
+
+    public void close() {
+        closed = true;
+        Connection physical;
+        while ((physical = idle.poll()) != null) {
+            discard(physical);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getOpenCount() {
+        return all.size();
+    }
+
+    public long getLeaseCount() {
+        return leaseCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public double getTotalWaitMillis() {
+        return waitNanos.sum() / 1_000_000.0;
+    }
+
+    public double getAverageWaitMillis() {
+        long leases = leaseCount.sum();
+        return leases == 0 ? 0.0 : getTotalWaitMillis() / leases;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public long getStatementCacheHits() {
+        return statementHits.sum();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementMisses.sum();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementEvictions.sum();
+    }
+
+    public int getCachedStatementCount() {
+        int count = 0;
+        for (StatementCache cache : statementCaches.values()) {
+            count += cache.size();
+        }
+        return count;
+    }
+
+    // Null when slow query logging is off
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    public double getStatementCacheHitRatio() {
+        long hits = statementHits.sum();
+        long total = hits + statementMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    // Intercepts close() so the physical connection goes back to the pool instead of being closed,
+    // prepareStatement(String) so statements come from the connection's statement cache,
+    // and statement creation so statements are timed for the slow query log and Flight Recorder
+    private class LeaseHandler implements InvocationHandler {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private boolean returned;
+
+        LeaseHandler(Connection physical) {
+            this.physical = physical;
+            this.statementCache = statementCaches.get(physical);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(physical)) {
+                        return physical;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Conexão já devolvida ao pool");
+            }
+
+            Object result;
+            if (statementCache != null && method.getName().equals("prepareStatement") && args.length == 1) {
+                result = statementCache.prepare((String) args[0]);
+            } else {
+                try {
+                    result = method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            return profiled(method.getName(), args, result);
+        }
+
+        // Statements are wrapped only when something records them; a recording started later applies
+        // from the next statement handed out
+        private Object profiled(String methodName, Object[] args, Object result) {
+            boolean prepared = methodName.equals("prepareStatement");
+            if (!prepared && !methodName.equals("createStatement")) {
+                return result;
+            }
+            boolean recordEvents = StatementEvent.isRecording();
+            if (slowQueryLog == null && !recordEvents) {
+                return result;
+            }
+            return prepared
+                ? ProfiledStatement.wrap((PreparedStatement) result, (String) args[0], slowQueryLog, recordEvents)
+                : ProfiledStatement.wrap((Statement) result, slowQueryLog, recordEvents);
+        }
+    }
+}
@@ -1,107 +1,114 @@
 package repository.sqlite;
 
+import repository.sqlite.migration.Migrations;
+import repository.sqlite.migration.SchemaMigrator;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.util.Properties;
 
 public class DatabaseManager {
-    private static final String DATABASE_URL = "jdbc:sqlite:gerenciador_pedidos.db";
-    private static Connection connection;
+    private static final String DATABASE_URL = System.getProperty("db.url", "jdbc:sqlite:gerenciador_pedidos.db");
+    private static final int POOL_SIZE = Integer.getInteger("db.pool.size", 8);
+    private static final long POOL_TIMEOUT_MILLIS = Long.getLong("db.pool.timeoutMillis", 5000L);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.statementCache.size", 64);
+    // Statements slower than this are kept, with their query plan, for GET /admin/slow-queries; negative disables
+    private static final long SLOW_QUERY_THRESHOLD_MILLIS = Long.getLong("db.slowQuery.thresholdMillis", 50L);
+    private static final int SLOW_QUERY_CAPACITY = Integer.getInteger("db.slowQuery.capacity", 100);
+
+    private static volatile ConnectionPool pool;
+
+    // Connection bound to the current thread by an open transaction
+    private static final ThreadLocal<Connection> TRANSACTION = new ThreadLocal<>();
 
+    // Leases a pooled connection; closing it returns the connection to the pool.
+    // Inside a transaction, returns the transaction's connection and closing it is a no-op.
     public static Connection getConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(DATABASE_URL);
-                initializeTables();
-            }
-            return connection;
-        } catch (SQLException e) {
-            throw new RuntimeException("Erro ao conectar com o banco de dados", e);
+        Connection transactional = TRANSACTION.get();
+        if (transactional != null) {
+            return nonClosing(transactional);
         }
+        return getPool().lease();
     }
 
-    private static void initializeTables() {
-        try (Statement stmt = connection.createStatement()) {
-            // Users table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS users (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    name TEXT NOT NULL,
-                    email TEXT UNIQUE NOT NULL,
-                    password TEXT NOT NULL,
-                    document TEXT NOT NULL
-                )
-                """);
+    static Connection currentTransaction() {
+        return TRANSACTION.get();
+    }
+
+    static void bindTransaction(Connection connection) {
+        TRANSACTION.set(connection);
+    }
 
-            // Products table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS products (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    name TEXT NOT NULL,
-                    value REAL NOT NULL,
-                    description TEXT NOT NULL,
-                    available_amount INTEGER NOT NULL,
-                    image TEXT,
-                    deleted_at DATETIME
-                )
-                """);
+    static void unbindTransaction() {
+        TRANSACTION.remove();
+    }
 
-            // Addresses table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS addresses (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    user_id INTEGER NOT NULL,
-                    street TEXT NOT NULL,
-                    number TEXT NOT NULL,
-                    neighborhood TEXT NOT NULL,
-                    zip_code TEXT NOT NULL,
-                    complement TEXT,
-                    city TEXT NOT NULL,
-                    state TEXT NOT NULL,
-                    FOREIGN KEY (user_id) REFERENCES users(id)
-                )
-                """);
+    private static Connection nonClosing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("close")) {
+                    return null;
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        );
+    }
 
-            // Orders table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS orders (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    user_id INTEGER NOT NULL,
-                    address_id INTEGER NOT NULL,
-                    order_status TEXT NOT NULL,
-                    created_at DATETIME NOT NULL,
-                    updated_at DATETIME NOT NULL,
-                    FOREIGN KEY (user_id) REFERENCES users(id),
-                    FOREIGN KEY (address_id) REFERENCES addresses(id)
-                )
-                """);
+    private static Properties connectionProperties() {
+        Properties properties = new Properties();
+        // Explicit transactions here always write, so take the write lock up front (BEGIN IMMEDIATE)
+        // instead of failing with SQLITE_BUSY when a read lock has to be upgraded
+        properties.setProperty("transaction_mode", "IMMEDIATE");
+        return properties;
+    }
 
-            // Order items table
-            stmt.execute("""
-                CREATE TABLE IF NOT EXISTS order_items (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    order_id INTEGER NOT NULL,
-                    product_id INTEGER NOT NULL,
-                    amount INTEGER NOT NULL,
-                    value REAL NOT NULL,
-                    FOREIGN KEY (order_id) REFERENCES orders(id),
-                    FOREIGN KEY (product_id) REFERENCES products(id)
-                )
-                """);
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseManager.class) {
+                current = pool;
+                if (current == null) {
+                    SlowQueryLog slowQueryLog = SLOW_QUERY_THRESHOLD_MILLIS >= 0
+                        ? new SlowQueryLog(SLOW_QUERY_THRESHOLD_MILLIS, SLOW_QUERY_CAPACITY)
+                        : null;
+                    current = new ConnectionPool(DATABASE_URL, connectionProperties(), POOL_SIZE, POOL_TIMEOUT_MILLIS,
+                        STATEMENT_CACHE_SIZE, slowQueryLog);
+                    migrate(current);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
 
+    // Runs pending schema migrations once, when the pool is first built
+    private static void migrate(ConnectionPool pool) {
+        try (Connection connection = pool.lease()) {
+            new SchemaMigrator(Migrations.all()).migrate(connection);
         } catch (SQLException e) {
-            throw new RuntimeException("Erro ao inicializar tabelas do banco de dados", e);
+            throw new RuntimeException("Erro ao migrar o esquema do banco de dados", e);
         }
     }
 
+    // Builds the pool and migrates the schema; call once at startup, before serving requests
+    public static void initialize() {
+        getPool();
+    }
+
     public static void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+        synchronized (DatabaseManager.class) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
             }
-        } catch (SQLException e) {
-            System.err.println("Erro ao fechar conexão com o banco de dados: " + e.getMessage());
         }
     }
 }
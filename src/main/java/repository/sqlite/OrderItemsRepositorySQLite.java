@@ -3,18 +3,29 @@ package repository.sqlite;
 import entity.OrderItems;
 import entity.Order;
 import entity.Product;
-import repository.RepositoryInterface;
+import repository.OrderItemsRepositoryInterface;
+import repository.Query;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class OrderItemsRepositorySQLite implements OrderItemsRepositoryInterface {
+    private static final Set<String> COLUMNS = Set.of(
+        "id", "order_id", "product_id", "amount", "value"
+    );
+
+    // Keeps each multi-row insert well below SQLite's bound parameter limit
+    private static final int BATCH_INSERT_ROWS = 200;
 
-public class OrderItemsRepositorySQLite implements RepositoryInterface<OrderItems> {
     public OrderItemsRepositorySQLite() {}
 
     @Override
     public OrderItems create(OrderItems orderItem) {
-        String sql = "INSERT INTO order_items (order_id, product_id, amount, value) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO order_items (order_id, product_id, amount, value) VALUES (?, ?, ?, ?) RETURNING id";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -24,12 +35,8 @@ public class OrderItemsRepositorySQLite implements RepositoryInterface<OrderItem
             pstmt.setInt(3, orderItem.getAmount());
             pstmt.setDouble(4, orderItem.getValue());
 
-            pstmt.executeUpdate();
-
-            // Get the generated ID using SQLite's last_insert_rowid() function
-            String getIdSql = "SELECT last_insert_rowid()";
-            try (PreparedStatement idStmt = conn.prepareStatement(getIdSql);
-                 ResultSet rs = idStmt.executeQuery()) {
+            // RETURNING hands back the generated id in the same statement
+            try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     orderItem.setId(rs.getInt(1));
                 }
@@ -41,6 +48,69 @@ public class OrderItemsRepositorySQLite implements RepositoryInterface<OrderItem
         }
     }
 
+    @Override
+    public List<OrderItems> createAll(List<OrderItems> orderItems) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            // Joins the caller's transaction if there is one, otherwise the chunks get their own
+            boolean ownTransaction = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                for (int from = 0; from < orderItems.size(); from += BATCH_INSERT_ROWS) {
+                    insertChunk(conn, orderItems.subList(from, Math.min(from + BATCH_INSERT_ROWS, orderItems.size())));
+                }
+
+                if (ownTransaction) {
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                if (ownTransaction) {
+                    conn.rollback();
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    conn.setAutoCommit(true);
+                }
+            }
+
+            return orderItems;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao criar itens do pedido", e);
+        }
+    }
+
+    // One multi-row INSERT ... RETURNING id per chunk: all generated ids come back with the insert itself
+    private void insertChunk(Connection conn, List<OrderItems> chunk) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO order_items (order_id, product_id, amount, value) VALUES ");
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+        sql.append(" RETURNING id");
+
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (OrderItems orderItem : chunk) {
+                pstmt.setInt(index++, orderItem.getOrder().getId());
+                pstmt.setInt(index++, orderItem.getProduct().getId());
+                pstmt.setInt(index++, orderItem.getAmount());
+                pstmt.setDouble(index++, orderItem.getValue());
+            }
+
+            List<Integer> ids = new ArrayList<>();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+
+            // RETURNING order is unspecified, but rows are inserted in VALUES order with increasing ids
+            Collections.sort(ids);
+            for (int i = 0; i < chunk.size() && i < ids.size(); i++) {
+                chunk.get(i).setId(ids.get(i));
+            }
+        }
+    }
+
     @Override
     public OrderItems update(OrderItems orderItem) {
         String sql = "UPDATE order_items SET order_id = ?, product_id = ?, amount = ?, value = ? WHERE id = ?";
@@ -118,6 +188,21 @@ public class OrderItemsRepositorySQLite implements RepositoryInterface<OrderItem
         }
     }
 
+    @Override
+    public List<OrderItems> findByOrderId(int orderId) {
+        return find(Query.where("order_id", Query.Operator.EQ, orderId));
+    }
+
+    @Override
+    public List<OrderItems> find(Query query) {
+        return SqlQuery.find("order_items", COLUMNS, query, this::mapResultSetToOrderItems);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return SqlQuery.select("order_items", COLUMNS, query);
+    }
+
     private OrderItems mapResultSetToOrderItems(ResultSet rs) throws SQLException {
         try {
             int orderId = rs.getInt("order_id");
@@ -140,8 +225,6 @@ public class OrderItemsRepositorySQLite implements RepositoryInterface<OrderItem
                 rs.getDouble("value")
             );
         } catch (SQLException e) {
-            System.err.println("[ORDER_ITEMS_REPO] Error mapping ResultSet to OrderItems: " + e.getMessage());
-            e.printStackTrace();
             throw new RuntimeException("Erro ao mapear item do pedido: " + e.getMessage(), e);
         }
     }
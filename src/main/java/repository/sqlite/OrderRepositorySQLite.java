@@ -1,19 +1,35 @@
 package repository.sqlite;
 
+import dto.OrderDetailsDTO;
+import dto.OrderSummaryDTO;
 import entity.Order;
+import entity.OrderItems;
+import entity.Product;
 import entity.User;
 import entity.Address;
-import repository.RepositoryInterface;
+import repository.OrderRepositoryInterface;
+import repository.Query;
+import log.Log;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class OrderRepositorySQLite implements OrderRepositoryInterface {
+    // Item count and total per order, straight from order_items
+    private static final String ITEM_TOTALS =
+        "SELECT order_id, COUNT(*) AS item_count, SUM(amount * value) AS total_value FROM order_items GROUP BY order_id";
+
+    private static final Set<String> COLUMNS = Set.of(
+        "id", "user_id", "address_id", "order_status", "created_at", "updated_at", "item_count", "total_value"
+    );
 
-public class OrderRepositorySQLite implements RepositoryInterface<Order> {
     @Override
     public Order create(Order order) {
-        String sql = "INSERT INTO orders (user_id, address_id, order_status, created_at, updated_at) VALUES (?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO orders (user_id, address_id, order_status, created_at, updated_at, item_count, total_value) VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -23,13 +39,11 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
             pstmt.setString(3, order.getOrderStatus().toString());
             pstmt.setTimestamp(4, new Timestamp(order.getCreatedAt().getTime()));
             pstmt.setTimestamp(5, new Timestamp(order.getUpdatedAt().getTime()));
+            pstmt.setInt(6, order.getItemCount());
+            pstmt.setDouble(7, order.getTotalValue());
 
-            pstmt.executeUpdate();
-
-            // Get the generated ID using SQLite's last_insert_rowid() function
-            String getIdSql = "SELECT last_insert_rowid()";
-            try (PreparedStatement idStmt = conn.prepareStatement(getIdSql);
-                 ResultSet rs = idStmt.executeQuery()) {
+            // RETURNING hands back the generated id in the same statement
+            try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     order.setId(rs.getInt(1));
                 }
@@ -43,7 +57,7 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
 
     @Override
     public Order update(Order order) {
-        String sql = "UPDATE orders SET user_id = ?, address_id = ?, order_status = ?, created_at = ?, updated_at = ? WHERE id = ?";
+        String sql = "UPDATE orders SET user_id = ?, address_id = ?, order_status = ?, created_at = ?, updated_at = ?, item_count = ?, total_value = ? WHERE id = ?";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -53,7 +67,9 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
             pstmt.setString(3, order.getOrderStatus().toString());
             pstmt.setTimestamp(4, new Timestamp(order.getCreatedAt().getTime()));
             pstmt.setTimestamp(5, new Timestamp(order.getUpdatedAt().getTime()));
-            pstmt.setInt(6, order.getId());
+            pstmt.setInt(6, order.getItemCount());
+            pstmt.setDouble(7, order.getTotalValue());
+            pstmt.setInt(8, order.getId());
 
             pstmt.executeUpdate();
             return order;
@@ -119,6 +135,151 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
         }
     }
 
+    @Override
+    public List<Order> findByUserId(int userId) {
+        return find(Query.where("user_id", Query.Operator.EQ, userId));
+    }
+
+    @Override
+    public OrderDetailsDTO findDetailsById(int orderId) {
+        // One row per item; the order, user and address columns repeat on every row.
+        // The LEFT JOINs keep an order without items, and the total comes from the order row itself.
+        String sql = """
+            SELECT o.id, o.user_id, o.address_id, o.order_status, o.created_at, o.updated_at, o.item_count, o.total_value,
+                   u.name AS user_name, u.email AS user_email, u.password AS user_password, u.document AS user_document,
+                   a.street, a.number, a.neighborhood, a.zip_code, a.complement, a.city, a.state,
+                   oi.id AS item_id, oi.amount AS item_amount, oi.value AS item_value,
+                   p.id AS product_id, p.name AS product_name, p.value AS product_value,
+                   p.description AS product_description, p.available_amount AS product_available_amount,
+                   p.image AS product_image, p.deleted_at AS product_deleted_at
+            FROM orders o
+            JOIN users u ON u.id = o.user_id
+            JOIN addresses a ON a.id = o.address_id
+            LEFT JOIN order_items oi ON oi.order_id = o.id
+            LEFT JOIN products p ON p.id = oi.product_id
+            WHERE o.id = ?
+            ORDER BY oi.id
+            """;
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, orderId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+
+                Order order = mapResultSetToOrder(rs);
+                order.setUser(new User(
+                    order.getUser().getId(),
+                    rs.getString("user_name"),
+                    rs.getString("user_email"),
+                    rs.getString("user_password"),
+                    rs.getString("user_document")
+                ));
+                order.setAddress(new Address(
+                    order.getAddress().getId(),
+                    order.getUser(),
+                    rs.getString("street"),
+                    rs.getString("number"),
+                    rs.getString("neighborhood"),
+                    rs.getString("zip_code"),
+                    rs.getString("complement"),
+                    rs.getString("city"),
+                    rs.getString("state")
+                ));
+                List<OrderItems> items = new ArrayList<>();
+                do {
+                    rs.getInt("product_id");
+                    if (rs.wasNull()) {
+                        continue; // Order without items, or item whose product row is gone
+                    }
+                    Timestamp deletedAt = rs.getTimestamp("product_deleted_at");
+                    Product product = new Product(
+                        rs.getInt("product_id"),
+                        rs.getString("product_name"),
+                        rs.getDouble("product_value"),
+                        rs.getString("product_description"),
+                        rs.getInt("product_available_amount"),
+                        rs.getString("product_image"),
+                        deletedAt != null ? new Date(deletedAt.getTime()) : null
+                    );
+                    items.add(new OrderItems(
+                        rs.getInt("item_id"),
+                        order,
+                        product,
+                        rs.getInt("item_amount"),
+                        rs.getDouble("item_value")
+                    ));
+                } while (rs.next());
+
+                return new OrderDetailsDTO(order, items, order.getTotalValue());
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar detalhes do pedido", e);
+        }
+    }
+
+    @Override
+    public List<OrderSummaryDTO> findSummaries(Query query) {
+        // Item count and total are stored on the order, so order_items is not read at all
+        List<OrderSummaryDTO> summaries = new ArrayList<>();
+        for (Order order : find(query)) {
+            summaries.add(new OrderSummaryDTO(order, order.getItemCount(), order.getTotalValue()));
+        }
+        return summaries;
+    }
+
+    @Override
+    public int countInconsistentTotals() {
+        String sql = "SELECT COUNT(*) FROM orders o " +
+                     "LEFT JOIN (" + ITEM_TOTALS + ") t ON t.order_id = o.id " +
+                     "WHERE o.item_count <> COALESCE(t.item_count, 0) OR ABS(o.total_value - COALESCE(t.total_value, 0)) > 0.000001";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+
+            return rs.next() ? rs.getInt(1) : 0;
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao verificar totais dos pedidos", e);
+        }
+    }
+
+    @Override
+    public int rebuildTotals() {
+        // One pass over order_items, then only orders whose stored values differ are rewritten
+        String sql = "WITH t AS (" + ITEM_TOTALS + ") " +
+                     "UPDATE orders SET " +
+                     "item_count = COALESCE((SELECT item_count FROM t WHERE t.order_id = orders.id), 0), " +
+                     "total_value = COALESCE((SELECT total_value FROM t WHERE t.order_id = orders.id), 0) " +
+                     "WHERE item_count <> COALESCE((SELECT item_count FROM t WHERE t.order_id = orders.id), 0) " +
+                     "OR ABS(total_value - COALESCE((SELECT total_value FROM t WHERE t.order_id = orders.id), 0)) > 0.000001";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            return stmt.executeUpdate(sql);
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao recalcular totais dos pedidos", e);
+        }
+    }
+
+    @Override
+    public List<Order> find(Query query) {
+        return SqlQuery.find("orders", COLUMNS, query, this::mapResultSetToOrder);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return SqlQuery.select("orders", COLUMNS, query);
+    }
+
     private Order mapResultSetToOrder(ResultSet rs) throws SQLException {
         int userId = rs.getInt("user_id");
         int addressId = rs.getInt("address_id");
@@ -140,7 +301,7 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
                 createdAt = new Date(createdAtTimestamp.getTime());
             }
         } catch (SQLException e) {
-            System.err.println("[ORDER_REPO] Warning: Could not get created_at timestamp, using current date");
+            Log.warn("order.mapping.bad_created_at", "orderId", rs.getInt("id"), "error", e.getMessage());
         }
 
         try {
@@ -149,7 +310,7 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
                 updatedAt = new Date(updatedAtTimestamp.getTime());
             }
         } catch (SQLException e) {
-            System.err.println("[ORDER_REPO] Warning: Could not get updated_at timestamp, using current date");
+            Log.warn("order.mapping.bad_updated_at", "orderId", rs.getInt("id"), "error", e.getMessage());
         }
 
         // Parse order status from database and convert to enum
@@ -158,7 +319,7 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
         try {
             orderStatus = Order.OrderStatus.valueOf(orderStatusString);
         } catch (Exception e) {
-            System.err.println("[ORDER_REPO] Warning: Invalid order status '" + orderStatusString + "', using PENDING");
+            Log.warn("order.mapping.bad_status", "orderId", rs.getInt("id"), "status", orderStatusString);
         }
 
         return new Order(
@@ -167,7 +328,9 @@ public class OrderRepositorySQLite implements RepositoryInterface<Order> {
             address,
             orderStatus,
             createdAt,
-            updatedAt
+            updatedAt,
+            rs.getInt("item_count"),
+            rs.getDouble("total_value")
         );
     }
 }
@@ -1,19 +1,26 @@
 package repository.sqlite;
 
 import entity.Product;
-import repository.RepositoryInterface;
+import repository.ProductRepositoryInterface;
+import repository.Query;
 import repository.sqlite.DatabaseManager;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class ProductRepositorySQLite implements RepositoryInterface<Product> {
+public class ProductRepositorySQLite implements ProductRepositoryInterface {
+    private static final Set<String> COLUMNS = Set.of(
+        "id", "name", "value", "description", "available_amount", "image", "deleted_at"
+    );
 
     @Override
     public Product create(Product product) {
-        String sql = "INSERT INTO products (name, value, description, available_amount, image, deleted_at) VALUES (?, ?, ?, ?, ?, ?)";
+        String sql = "INSERT INTO products (name, value, description, available_amount, image, deleted_at) VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -25,12 +32,8 @@ public class ProductRepositorySQLite implements RepositoryInterface<Product> {
             pstmt.setString(5, product.getImage());
             pstmt.setTimestamp(6, product.getDeletedAt() != null ? new Timestamp(product.getDeletedAt().getTime()) : null);
 
-            pstmt.executeUpdate();
-
-            // Get the generated ID using SQLite's last_insert_rowid() function
-            String getIdSql = "SELECT last_insert_rowid()";
-            try (PreparedStatement idStmt = conn.prepareStatement(getIdSql);
-                 ResultSet rs = idStmt.executeQuery()) {
+            // RETURNING hands back the generated id in the same statement
+            try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     product.setId(rs.getInt(1));
                 }
@@ -64,6 +67,84 @@ public class ProductRepositorySQLite implements RepositoryInterface<Product> {
         }
     }
 
+    @Override
+    public void addStock(Map<Integer, Integer> deltaByProductId) {
+        if (deltaByProductId.isEmpty()) {
+            return;
+        }
+
+        String sql = "UPDATE products SET available_amount = available_amount + ? WHERE id = ?";
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            // Joins the caller's transaction if there is one, otherwise the batch gets its own
+            boolean ownTransaction = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Map.Entry<Integer, Integer> entry : deltaByProductId.entrySet()) {
+                    pstmt.setInt(1, entry.getValue());
+                    pstmt.setInt(2, entry.getKey());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+
+                if (ownTransaction) {
+                    conn.commit();
+                }
+            } catch (SQLException e) {
+                if (ownTransaction) {
+                    conn.rollback();
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao atualizar estoque dos produtos", e);
+        }
+    }
+
+    @Override
+    public boolean decrementStock(int productId, int amount) {
+        return decrementStock(Map.of(productId, amount)).get(productId);
+    }
+
+    @Override
+    public Map<Integer, Boolean> decrementStock(Map<Integer, Integer> amountByProductId) {
+        Map<Integer, Boolean> results = new LinkedHashMap<>();
+        if (amountByProductId.isEmpty()) {
+            return results;
+        }
+
+        // The WHERE clause makes check-and-decrement a single atomic statement, so concurrent orders cannot oversell
+        String sql = "UPDATE products SET available_amount = available_amount - ? " +
+                     "WHERE id = ? AND deleted_at IS NULL AND available_amount >= ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            List<Integer> productIds = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entry : amountByProductId.entrySet()) {
+                pstmt.setInt(1, entry.getValue());
+                pstmt.setInt(2, entry.getKey());
+                pstmt.setInt(3, entry.getValue());
+                pstmt.addBatch();
+                productIds.add(entry.getKey());
+            }
+
+            int[] updated = pstmt.executeBatch();
+            for (int i = 0; i < productIds.size(); i++) {
+                results.put(productIds.get(i), updated[i] > 0);
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao baixar estoque dos produtos", e);
+        }
+
+        return results;
+    }
+
     @Override
     public List<Product> list() {
         return findAll(false); // By default, don't include deleted products
@@ -138,6 +219,16 @@ public class ProductRepositorySQLite implements RepositoryInterface<Product> {
         return null;
     }
 
+    @Override
+    public List<Product> find(Query query) {
+        return SqlQuery.find("products", COLUMNS, query, this::mapResultSetToProduct);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return SqlQuery.select("products", COLUMNS, query);
+    }
+
     private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
         Timestamp deletedAtTimestamp = rs.getTimestamp("deleted_at");
         Date deletedAt = deletedAtTimestamp != null ? new Date(deletedAtTimestamp.getTime()) : null;
@@ -0,0 +1,229 @@
+package repository.sqlite;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+// Times every execution of a statement, hands the slow ones to the SlowQueryLog and, while a Flight Recorder
+// recording is running, emits a StatementEvent with the rows read or changed.
+// Bound parameters are remembered as they are set, so a slow execution can be recorded with the values it ran with.
+// For the slow query log only the execute call itself is timed: for a query that is the first step, and
+// reading the remaining rows is left out. The event covers the rows too, counted as the result set is read.
+class ProfiledStatement implements InvocationHandler {
+    private final Statement statement;
+    private final SlowQueryLog slowQueryLog;
+    private final boolean recordEvents;
+    private final String preparedSql;
+
+    private Object[] parameters;
+    private int parameterCount;
+    private int batchRows;
+
+    // Event of the last query, committed when its result set or this statement is closed
+    private RowCounter openQuery;
+
+    private ProfiledStatement(Statement statement, SlowQueryLog slowQueryLog, boolean recordEvents, String preparedSql) {
+        this.statement = statement;
+        this.slowQueryLog = slowQueryLog;
+        this.recordEvents = recordEvents;
+        this.preparedSql = preparedSql;
+    }
+
+    // slowQueryLog may be null when only events are recorded
+    static PreparedStatement wrap(PreparedStatement statement, String sql, SlowQueryLog slowQueryLog, boolean recordEvents) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+            PreparedStatement.class.getClassLoader(),
+            new Class<?>[] { PreparedStatement.class },
+            new ProfiledStatement(statement, slowQueryLog, recordEvents, sql)
+        );
+    }
+
+    static Statement wrap(Statement statement, SlowQueryLog slowQueryLog, boolean recordEvents) {
+        return (Statement) Proxy.newProxyInstance(
+            Statement.class.getClassLoader(),
+            new Class<?>[] { Statement.class },
+            new ProfiledStatement(statement, slowQueryLog, recordEvents, null)
+        );
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "ProfiledStatement[" + statement + "]";
+            case "close":
+                finishOpenQuery();
+                break;
+            case "clearParameters":
+                if (parameters != null) {
+                    Arrays.fill(parameters, null);
+                }
+                parameterCount = 0;
+                break;
+            case "addBatch":
+                batchRows++;
+                break;
+            case "clearBatch":
+                batchRows = 0;
+                break;
+            default:
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    remember((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                }
+                break;
+        }
+
+        if (!name.startsWith("execute")) {
+            return call(method, args);
+        }
+
+        // Running the statement again closes its previous result set
+        finishOpenQuery();
+        String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : "(batch)";
+        boolean batch = name.startsWith("executeBatch") || name.startsWith("executeLargeBatch");
+        int rows = batch ? batchRows : 0;
+        if (batch) {
+            batchRows = 0;
+        }
+
+        StatementEvent event = recordEvents ? new StatementEvent() : null;
+        if (event != null) {
+            event.begin();
+            event.sql = sql;
+            event.batchRows = rows;
+            event.rowCount = -1;
+        }
+
+        long start = System.nanoTime();
+        Object result = null;
+        try {
+            result = call(method, args);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (slowQueryLog != null && slowQueryLog.isSlow(elapsed)) {
+                Object[] bound = parameters != null ? Arrays.copyOf(parameters, parameterCount) : null;
+                slowQueryLog.record(sql, bound, rows, elapsed);
+            }
+            if (event != null && !(result instanceof ResultSet)) {
+                event.rowCount = changedRows(result);
+                event.commit();
+            }
+        }
+
+        if (event != null && result instanceof ResultSet) {
+            openQuery = new RowCounter((ResultSet) result, event);
+            return openQuery.proxy;
+        }
+        return result;
+    }
+
+    // Update counts as returned by executeUpdate/executeBatch; -1 when execute() produced a result set or failed
+    private long changedRows(Object result) throws Exception {
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof int[]) {
+            return Arrays.stream((int[]) result).filter(count -> count > 0).asLongStream().sum();
+        }
+        if (result instanceof long[]) {
+            return Arrays.stream((long[]) result).filter(count -> count > 0).sum();
+        }
+        if (Boolean.FALSE.equals(result)) {
+            return statement.getUpdateCount();
+        }
+        return -1;
+    }
+
+    private void finishOpenQuery() {
+        if (openQuery != null) {
+            openQuery.finish();
+            openQuery = null;
+        }
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void remember(int index, Object value) {
+        if (index < 1) {
+            return;
+        }
+        if (parameters == null) {
+            parameters = new Object[Math.max(index, 4)];
+        } else if (parameters.length < index) {
+            parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+        }
+        parameters[index - 1] = value;
+        parameterCount = Math.max(parameterCount, index);
+    }
+
+    // Counts the rows a query's result set hands out and commits the query's event when it is closed
+    private static class RowCounter implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final StatementEvent event;
+        private final ResultSet proxy;
+        private long rows;
+        private boolean finished;
+
+        RowCounter(ResultSet resultSet, StatementEvent event) {
+            this.resultSet = resultSet;
+            this.event = event;
+            this.proxy = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                this
+            );
+        }
+
+        void finish() {
+            if (!finished) {
+                finished = true;
+                event.rowCount = rows;
+                event.commit();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CountedResultSet[" + resultSet + "]";
+                case "close":
+                    finish();
+                    break;
+                default:
+                    break;
+            }
+
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next")) {
+                rows++;
+            }
+            return result;
+        }
+    }
+}
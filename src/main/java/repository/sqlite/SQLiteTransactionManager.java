@@ -0,0 +1,87 @@
+package repository.sqlite;
+
+import repository.TransactionManager;
+import log.Log;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class SQLiteTransactionManager implements TransactionManager {
+    // Actions waiting for the current thread's transaction to finish
+    private static final ThreadLocal<List<Runnable>> AFTER_COMPLETION = new ThreadLocal<>();
+
+    @Override
+    public <T> T inTransaction(Supplier<T> work) {
+        // Nested calls join the transaction already open on this thread
+        if (DatabaseManager.currentTransaction() != null) {
+            return work.get();
+        }
+
+        List<Runnable> afterCompletion = new ArrayList<>();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            DatabaseManager.bindTransaction(conn);
+            AFTER_COMPLETION.set(afterCompletion);
+            Throwable failure = null;
+            try {
+                T result = work.get();
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException | Error e) {
+                // A failed commit leaves the transaction open, so it is rolled back here too
+                failure = e;
+                rollback(conn);
+                throw e;
+            } finally {
+                AFTER_COMPLETION.remove();
+                DatabaseManager.unbindTransaction();
+                restoreAutoCommit(conn, failure);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao executar transação no banco de dados", e);
+        } finally {
+            for (Runnable action : afterCompletion) {
+                action.run();
+            }
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        return DatabaseManager.currentTransaction() != null;
+    }
+
+    @Override
+    public void afterCompletion(Runnable action) {
+        List<Runnable> pending = AFTER_COMPLETION.get();
+        if (pending != null) {
+            pending.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    private void rollback(Connection conn) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            Log.warn("transaction.rollback.failed", "error", e.getMessage());
+        }
+    }
+
+    // In sqlite-jdbc this runs another COMMIT; if it fails after the transaction already failed,
+    // the original exception is the one callers need to see
+    private void restoreAutoCommit(Connection conn, Throwable failure) throws SQLException {
+        try {
+            conn.setAutoCommit(true);
+        } catch (SQLException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package repository.sqlite;
+
+import log.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// The most recent statements that took longer than a threshold, with their bound parameters and the
+// EXPLAIN QUERY PLAN of their SQL, so a missing index shows up as a named table scan instead of general slowness.
+// Only the last `capacity` slow statements are kept. A plan is captured once per distinct SQL, when the log
+// is first read after that SQL was slow, on a connection of its own: running EXPLAIN on the request's
+// connection while its statement is still open can leave SQLite's transaction state behind.
+// At most MAX_PLANS plans are kept.
+// Parameters of statements that mention a password column are written as "***".
+public class SlowQueryLog {
+    private static final int MAX_PLANS = 500;
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    private final long thresholdNanos;
+    private final Entry[] ring;
+    private long next;
+
+    private final Map<String, List<String>> plans = new ConcurrentHashMap<>();
+
+    // Stats
+    private final LongAdder recorded = new LongAdder();
+
+    public SlowQueryLog(long thresholdMillis, int capacity) {
+        if (thresholdMillis < 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Limite e capacidade do log de consultas lentas devem ser positivos");
+        }
+        this.thresholdNanos = thresholdMillis * 1_000_000L;
+        this.ring = new Entry[capacity];
+    }
+
+    boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    void record(String sql, Object[] parameters, int batchRows, long elapsedNanos) {
+        recorded.increment();
+        Entry entry = new Entry(System.currentTimeMillis(), sql, describe(sql, parameters), batchRows, elapsedNanos / 1_000_000.0);
+        synchronized (this) {
+            ring[(int) (next++ % ring.length)] = entry;
+        }
+        Log.warn("db.slow_query", "millis", Math.round(entry.millis), "sql", sql);
+    }
+
+    // Newest first
+    public List<SlowQuery> getEntries() {
+        List<Entry> latest = new ArrayList<>();
+        synchronized (this) {
+            for (long i = next - 1; i >= 0 && i >= next - ring.length; i--) {
+                latest.add(ring[(int) (i % ring.length)]);
+            }
+        }
+
+        List<SlowQuery> entries = new ArrayList<>();
+        for (Entry entry : latest) {
+            entries.add(new SlowQuery(entry, planFor(entry.sql)));
+        }
+        return entries;
+    }
+
+    public long getThresholdMillis() {
+        return thresholdNanos / 1_000_000L;
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    private List<String> planFor(String sql) {
+        List<String> plan = plans.get(sql);
+        if (plan != null) {
+            return plan;
+        }
+        plan = explain(sql);
+        if (plans.size() < MAX_PLANS) {
+            plans.putIfAbsent(sql, plan);
+        }
+        return plan;
+    }
+
+    // One line per plan step, indented under its parent step; parameters are left unbound (NULL),
+    // which doesn't change which indexes SQLite picks
+    private static List<String> explain(String sql) {
+        List<String> plan = new ArrayList<>();
+        Map<Integer, Integer> depths = new HashMap<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                int depth = depths.getOrDefault(rs.getInt("parent"), -1) + 1;
+                depths.put(rs.getInt("id"), depth);
+                plan.add("  ".repeat(depth) + rs.getString("detail"));
+            }
+        } catch (SQLException e) {
+            plan.add("Plano indisponível: " + e.getMessage());
+        }
+        return Collections.unmodifiableList(plan);
+    }
+
+    private static List<String> describe(String sql, Object[] parameters) {
+        List<String> described = new ArrayList<>();
+        if (parameters == null) {
+            return described;
+        }
+        boolean redact = sql.toLowerCase(Locale.ROOT).contains("password");
+        for (Object parameter : parameters) {
+            String value;
+            if (redact) {
+                value = "***";
+            } else if (parameter instanceof byte[]) {
+                value = "<" + ((byte[]) parameter).length + " bytes>";
+            } else {
+                value = String.valueOf(parameter);
+                if (value.length() > MAX_PARAMETER_LENGTH) {
+                    value = value.substring(0, MAX_PARAMETER_LENGTH) + "...";
+                }
+            }
+            described.add(value);
+        }
+        return described;
+    }
+
+    private static class Entry {
+        private final long timestamp;
+        private final String sql;
+        private final List<String> parameters;
+        private final int batchRows;
+        private final double millis;
+
+        Entry(long timestamp, String sql, List<String> parameters, int batchRows, double millis) {
+            this.timestamp = timestamp;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.batchRows = batchRows;
+            this.millis = millis;
+        }
+    }
+
+    public static class SlowQuery {
+        private final Entry entry;
+        private final List<String> plan;
+
+        SlowQuery(Entry entry, List<String> plan) {
+            this.entry = entry;
+            this.plan = plan;
+        }
+
+        public long getTimestamp() {
+            return entry.timestamp;
+        }
+
+        public String getSql() {
+            return entry.sql;
+        }
+
+        // Bound parameters in order; for a batch, those of the last row added
+        public List<String> getParameters() {
+            return entry.parameters;
+        }
+
+        // Rows sent by executeBatch, 0 for a single execution
+        public int getBatchRows() {
+            return entry.batchRows;
+        }
+
+        public double getMillis() {
+            return entry.millis;
+        }
+
+        public List<String> getPlan() {
+            return plan;
+        }
+    }
+}
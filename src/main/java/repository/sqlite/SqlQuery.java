@@ -0,0 +1,181 @@
+package repository.sqlite;
+
+import repository.Query;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Compiles a repository Query into parameterized SQL for one table.
+// Column names are checked against the table's known columns; values are always bound, never inlined,
+// so the same query shape always produces the same SQL text.
+public class SqlQuery {
+
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private final String sql;
+    private final List<Object> params;
+
+    private SqlQuery(String sql, List<Object> params) {
+        this.sql = sql;
+        this.params = params;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParams() {
+        return params;
+    }
+
+    public static SqlQuery compile(String table, Set<String> columns, Query query, boolean projected) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        List<Object> params = new ArrayList<>();
+
+        if (projected && !query.getColumns().isEmpty()) {
+            for (int i = 0; i < query.getColumns().size(); i++) {
+                if (i > 0) sql.append(", ");
+                sql.append(checkColumn(columns, query.getColumns().get(i)));
+            }
+        } else {
+            sql.append("*");
+        }
+        sql.append(" FROM ").append(table);
+
+        List<Query.Condition> conditions = query.getConditions();
+        for (int i = 0; i < conditions.size(); i++) {
+            Query.Condition condition = conditions.get(i);
+            sql.append(i == 0 ? " WHERE " : " AND ");
+            String column = checkColumn(columns, condition.getColumn());
+
+            if (condition.getOperator() == Query.Operator.IN) {
+                List<?> values = condition.getValues();
+                if (values.isEmpty()) {
+                    // IN () is not valid SQL; an empty list never matches
+                    sql.append("0 = 1");
+                    continue;
+                }
+                sql.append(column).append(" IN (");
+                for (int j = 0; j < values.size(); j++) {
+                    sql.append(j == 0 ? "?" : ", ?");
+                    params.add(values.get(j));
+                }
+                sql.append(')');
+            } else if (condition.getOperator().takesValue()) {
+                sql.append(column).append(' ').append(condition.getOperator().getSql()).append(" ?");
+                params.add(condition.getValue());
+            } else {
+                sql.append(column).append(' ').append(condition.getOperator().getSql());
+            }
+        }
+
+        sql.append(orderBy(columns, query, ""));
+
+        if (query.getLimit() != null || query.getOffset() != null) {
+            sql.append(" LIMIT ?");
+            params.add(query.getLimit() != null ? query.getLimit() : -1);
+            if (query.getOffset() != null) {
+                sql.append(" OFFSET ?");
+                params.add(query.getOffset());
+            }
+        }
+
+        return new SqlQuery(sql.toString(), params);
+    }
+
+    // " ORDER BY ..." for the query's sorts, with each column prefixed by qualifier (e.g. "o."); empty when unsorted
+    public static String orderBy(Set<String> columns, Query query, String qualifier) {
+        StringBuilder sql = new StringBuilder();
+        List<Query.Sort> sorts = query.getSorts();
+        for (int i = 0; i < sorts.size(); i++) {
+            Query.Sort sort = sorts.get(i);
+            sql.append(i == 0 ? " ORDER BY " : ", ");
+            sql.append(qualifier).append(checkColumn(columns, sort.getColumn())).append(sort.isAscending() ? " ASC" : " DESC");
+        }
+        return sql.toString();
+    }
+
+    public static <T> List<T> find(String table, Set<String> columns, Query query, RowMapper<T> mapper) {
+        SqlQuery compiled = compile(table, columns, query, false);
+        List<T> results = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(compiled.getSql())) {
+
+            compiled.bind(pstmt);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao consultar " + table, e);
+        }
+
+        return results;
+    }
+
+    public static List<Map<String, Object>> select(String table, Set<String> columns, Query query) {
+        SqlQuery compiled = compile(table, columns, query, true);
+        List<Map<String, Object>> rows = new ArrayList<>();
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(compiled.getSql())) {
+
+            compiled.bind(pstmt);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        row.put(meta.getColumnLabel(i), rs.getObject(i));
+                    }
+                    rows.add(row);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao consultar " + table, e);
+        }
+
+        return rows;
+    }
+
+    public void bind(PreparedStatement pstmt) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            pstmt.setObject(i + 1, toSqlValue(params.get(i)));
+        }
+    }
+
+    private static Object toSqlValue(Object value) {
+        if (value instanceof Date && !(value instanceof Timestamp)) {
+            return new Timestamp(((Date) value).getTime());
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value;
+    }
+
+    private static String checkColumn(Set<String> columns, String column) {
+        if (!columns.contains(column)) {
+            throw new IllegalArgumentException("Coluna inválida para consulta: " + column);
+        }
+        return column;
+    }
+}
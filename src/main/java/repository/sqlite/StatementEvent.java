@@ -0,0 +1,36 @@
+package repository.sqlite;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder event for one statement execution. For a query it lasts until its result set is closed,
+// so reading the rows is included. No stack trace: there can be many of these per request.
+@Name("gerenciador.SqlStatement")
+@Label("SQL Statement")
+@Category({"Gerenciador de Pedidos", "Database"})
+@Description("One statement run through the connection pool, with the rows it read or changed")
+@StackTrace(false)
+class StatementEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(StatementEvent.class);
+
+    @Label("SQL")
+    String sql;
+
+    @Label("Row Count")
+    @Description("Rows read by a query, or rows changed by an update; -1 if unknown or the statement failed")
+    long rowCount;
+
+    @Label("Batch Rows")
+    @Description("Rows sent by executeBatch, 0 for a single execution")
+    int batchRows;
+
+    // True while a running recording has this event enabled; checked when a statement is handed out
+    static boolean isRecording() {
+        return TYPE.isEnabled();
+    }
+}
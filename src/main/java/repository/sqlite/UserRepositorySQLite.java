@@ -1,18 +1,24 @@
 package repository.sqlite;
 
 import entity.User;
-import repository.RepositoryInterface;
+import repository.UserRepositoryInterface;
+import repository.Query;
 import repository.sqlite.DatabaseManager;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class UserRepositorySQLite implements RepositoryInterface<User> {
+public class UserRepositorySQLite implements UserRepositoryInterface {
+    private static final Set<String> COLUMNS = Set.of(
+        "id", "name", "email", "password", "document"
+    );
 
     @Override
     public User create(User user) {
-        String sql = "INSERT INTO users (name, email, password, document) VALUES (?, ?, ?, ?)";
+        String sql = "INSERT INTO users (name, email, password, document) VALUES (?, ?, ?, ?) RETURNING id";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -22,12 +28,8 @@ public class UserRepositorySQLite implements RepositoryInterface<User> {
             pstmt.setString(3, user.getPassword());
             pstmt.setString(4, user.getDocument());
 
-            pstmt.executeUpdate();
-
-            // Get the generated ID using SQLite's last_insert_rowid() function
-            String getIdSql = "SELECT last_insert_rowid()";
-            try (PreparedStatement idStmt = conn.prepareStatement(getIdSql);
-                 ResultSet rs = idStmt.executeQuery()) {
+            // RETURNING hands back the generated id in the same statement
+            try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
                     user.setId(rs.getInt(1));
                 }
@@ -116,6 +118,39 @@ public class UserRepositorySQLite implements RepositoryInterface<User> {
         }
     }
 
+    @Override
+    public User findByEmail(String email) {
+        // Served by the UNIQUE index on email
+        String sql = "SELECT * FROM users WHERE email = ?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, email);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapResultSetToUser(rs);
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao buscar usuário por email", e);
+        }
+
+        return null;
+    }
+
+    @Override
+    public List<User> find(Query query) {
+        return SqlQuery.find("users", COLUMNS, query, this::mapResultSetToUser);
+    }
+
+    @Override
+    public List<Map<String, Object>> select(Query query) {
+        return SqlQuery.select("users", COLUMNS, query);
+    }
+
     private User mapResultSetToUser(ResultSet rs) throws SQLException {
         return new User(
             rs.getInt("id"),
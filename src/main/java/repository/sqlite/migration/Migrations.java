@@ -0,0 +1,87 @@
+package repository.sqlite.migration;
+
+import java.util.List;
+
+// Numbered schema migrations, applied in order by SchemaMigrator.
+// Never edit a migration that has already shipped - add a new one instead.
+public class Migrations {
+
+    public static List<Migration> all() {
+        return List.of(
+            new Migration(1, "initial schema",
+                """
+                CREATE TABLE IF NOT EXISTS users (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    name TEXT NOT NULL,
+                    email TEXT UNIQUE NOT NULL,
+                    password TEXT NOT NULL,
+                    document TEXT NOT NULL
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS products (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    name TEXT NOT NULL,
+                    value REAL NOT NULL,
+                    description TEXT NOT NULL,
+                    available_amount INTEGER NOT NULL,
+                    image TEXT,
+                    deleted_at DATETIME
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS addresses (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    user_id INTEGER NOT NULL,
+                    street TEXT NOT NULL,
+                    number TEXT NOT NULL,
+                    neighborhood TEXT NOT NULL,
+                    zip_code TEXT NOT NULL,
+                    complement TEXT,
+                    city TEXT NOT NULL,
+                    state TEXT NOT NULL,
+                    FOREIGN KEY (user_id) REFERENCES users(id)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS orders (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    user_id INTEGER NOT NULL,
+                    address_id INTEGER NOT NULL,
+                    order_status TEXT NOT NULL,
+                    created_at DATETIME NOT NULL,
+                    updated_at DATETIME NOT NULL,
+                    FOREIGN KEY (user_id) REFERENCES users(id),
+                    FOREIGN KEY (address_id) REFERENCES addresses(id)
+                )
+                """,
+                """
+                CREATE TABLE IF NOT EXISTS order_items (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    order_id INTEGER NOT NULL,
+                    product_id INTEGER NOT NULL,
+                    amount INTEGER NOT NULL,
+                    value REAL NOT NULL,
+                    FOREIGN KEY (order_id) REFERENCES orders(id),
+                    FOREIGN KEY (product_id) REFERENCES products(id)
+                )
+                """
+            ),
+            new Migration(2, "secondary indexes for user and order lookups",
+                "CREATE INDEX IF NOT EXISTS idx_orders_user_id ON orders(user_id)",
+                "CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id)",
+                "CREATE INDEX IF NOT EXISTS idx_addresses_user_id ON addresses(user_id)",
+                "CREATE INDEX IF NOT EXISTS idx_products_deleted_at ON products(deleted_at)"
+            ),
+            new Migration(3, "denormalized item count and total value on orders",
+                "ALTER TABLE orders ADD COLUMN item_count INTEGER NOT NULL DEFAULT 0",
+                "ALTER TABLE orders ADD COLUMN total_value REAL NOT NULL DEFAULT 0",
+                """
+                UPDATE orders SET
+                    item_count = (SELECT COUNT(*) FROM order_items oi WHERE oi.order_id = orders.id),
+                    total_value = (SELECT COALESCE(SUM(oi.amount * oi.value), 0) FROM order_items oi WHERE oi.order_id = orders.id)
+                """
+            )
+        );
+    }
+}
@@ -0,0 +1,90 @@
+package repository.sqlite.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class SchemaMigrator {
+    private final List<Migration> migrations;
+
+    public SchemaMigrator(List<Migration> migrations) {
+        this.migrations = migrations;
+    }
+
+    // Applies every pending migration, each one in its own transaction
+    public int migrate(Connection conn) {
+        try {
+            createVersionTable(conn);
+            Set<Integer> applied = appliedVersions(conn);
+
+            int count = 0;
+            for (Migration migration : migrations) {
+                if (!applied.contains(migration.getVersion())) {
+                    apply(conn, migration);
+                    count++;
+                }
+            }
+            return count;
+        } catch (SQLException e) {
+            throw new RuntimeException("Erro ao executar migrações do banco de dados", e);
+        }
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at DATETIME NOT NULL
+                )
+                """);
+        }
+    }
+
+    private Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : migration.getStatements()) {
+                    stmt.execute(sql);
+                }
+            }
+
+            String sql = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, migration.getVersion());
+                pstmt.setString(2, migration.getDescription());
+                pstmt.setTimestamp(3, new Timestamp(new Date().getTime()));
+                pstmt.executeUpdate();
+            }
+
+            conn.commit();
+            System.out.println("[MIGRATION] Applied V" + migration.getVersion() + " - " + migration.getDescription());
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Falha na migração V" + migration.getVersion() + ": " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package repository.loader;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Timeout(10)
+class BatchLoaderTest {
+    private static final int WAITERS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(WAITERS);
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final CountDownLatch fetchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFetch = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadsOfTheSameIdShareOneFetch() throws Exception {
+        BatchLoader<Row> loader = loader(ids -> {
+            blockFirstFetch();
+            List<Row> rows = new ArrayList<>();
+            for (int id : ids) {
+                rows.add(new Row(id));
+            }
+            return rows;
+        });
+
+        List<Future<Row>> results = loadConcurrently(loader, 7);
+        releaseFetch.countDown();
+
+        List<Row> rows = new ArrayList<>();
+        for (Future<Row> result : results) {
+            Row row = result.get();
+            assertEquals(7, row.id);
+            rows.add(row);
+        }
+        assertEquals(1, fetches.get());
+        assertEquals(WAITERS - 1, loader.getCoalescedCount());
+        // Rows are mutable, so only the caller that started the load gets the fetched instance
+        for (int i = 1; i < rows.size(); i++) {
+            assertNotSame(rows.get(0), rows.get(i));
+        }
+    }
+
+    @Test
+    void failedFetchFailsEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("falha no banco");
+        BatchLoader<Row> loader = loader(ids -> {
+            blockFirstFetch();
+            throw failure;
+        });
+
+        assertEveryWaiterFails(loadConcurrently(loader, 7), failure);
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void fetchThrowingAnErrorStillFailsEveryWaiter() throws Exception {
+        StackOverflowError failure = new StackOverflowError();
+        BatchLoader<Row> loader = loader(ids -> {
+            blockFirstFetch();
+            throw failure;
+        });
+
+        assertEveryWaiterFails(loadConcurrently(loader, 7), failure);
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void loadAfterAFailureFetchesAgain() {
+        IllegalStateException failure = new IllegalStateException("falha no banco");
+        BatchLoader<Row> loader = loader(ids -> {
+            if (fetches.incrementAndGet() == 1) {
+                throw failure;
+            }
+            return List.of(new Row(7));
+        });
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> loader.load(7)));
+        assertEquals(7, loader.load(7).id);
+        assertEquals(2, fetches.get());
+    }
+
+    private BatchLoader<Row> loader(Function<Collection<Integer>, List<Row>> fetch) {
+        return new BatchLoader<>(fetch, row -> row.id, row -> new Row(row.id), 100);
+    }
+
+    // Holds the first fetch open until the test has every waiter queued behind it
+    private void blockFirstFetch() {
+        if (fetches.incrementAndGet() == 1) {
+            fetchStarted.countDown();
+            try {
+                releaseFetch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    // Starts one load that blocks inside the fetch, then WAITERS - 1 more that join it
+    private List<Future<Row>> loadConcurrently(BatchLoader<Row> loader, int id) throws InterruptedException {
+        List<Future<Row>> results = new ArrayList<>();
+        results.add(executor.submit(() -> loader.load(id)));
+        fetchStarted.await();
+        for (int i = 1; i < WAITERS; i++) {
+            results.add(executor.submit(() -> loader.load(id)));
+        }
+        while (loader.getCoalescedCount() < WAITERS - 1) {
+            Thread.sleep(1);
+        }
+        return results;
+    }
+
+    private void assertEveryWaiterFails(List<Future<Row>> results, Throwable failure) {
+        releaseFetch.countDown();
+        for (Future<Row> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertSame(failure, e.getCause());
+        }
+    }
+
+    private static class Row {
+        private final int id;
+
+        Row(int id) {
+            this.id = id;
+        }
+    }
+}